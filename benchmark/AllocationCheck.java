@@ -0,0 +1,129 @@
+package benchmark;
+
+/**
+ * @author Chanan Welt.
+ * Allocation check: validates that the steady state churn of the wired tree allocates nothing,
+ * since deleted nodes are recycled through the node pool, and the tree's scans reuse their buffers.
+ * The mix workload is applied on one tree, and then undone (in reverse order, with inserts & deletes swapped),
+ * so the tree returns to it's initial content and every cycle could be applied again on the same tree.
+ * The first cycles warm up: they fill the node pool with the nodes the workload needs beyond the initial size,
+ * grow the reused buffers to their working size, and let the JIT compile the operations.
+ * Each following cycle must allocate zero bytes on the running thread.
+ *
+ * Usage: AllocationCheck [options]
+ *   -size <n>              initial number of students (default 100,000)
+ *   -operations <n>        operations in the mix workload (default 1,000,000)
+ *   -warmup <cycles>       unmeasured cycles (default 3)
+ *   -cycles <cycles>       measured cycles (default 3)
+ *   -seed <n>              seed of the generated workload (default 42)
+ *
+ * Exit status: 0 - nothing was allocated, 1 - a measured cycle allocated,
+ * 2 - invalid arguments, or the JVM doesn't count allocated bytes per thread.
+ */
+public class AllocationCheck
+{
+	// Exit status codes
+	public static final int EXIT_SUCCESS = 0;
+	public static final int EXIT_ALLOCATED = 1;
+	public static final int EXIT_USAGE = 2;
+
+	public static void main(String[] args)
+	{
+		System.exit(run(args));
+	}
+
+	/**
+	 * Run the check.
+	 * @param args - command line arguments (see class documentation).
+	 * @return the exit status.
+	 */
+	public static int run(String[] args)
+	{
+		int size = 100_000, operations = 1_000_000, warmupCycles = 3, measuredCycles = 3;
+		long seed = 42;
+
+		// parse options:
+		try
+		{
+			for (int i = 0; i < args.length; i++)
+			{
+				String option = args[i];
+				if (i + 1 == args.length)
+					return usage("Missing value for " + option);
+				String value = args[++i];
+				if (option.equals("-size"))
+					size = Integer.parseInt(value);
+				else if (option.equals("-operations"))
+					operations = Integer.parseInt(value);
+				else if (option.equals("-warmup"))
+					warmupCycles = Integer.parseInt(value);
+				else if (option.equals("-cycles"))
+					measuredCycles = Integer.parseInt(value);
+				else if (option.equals("-seed"))
+					seed = Long.parseLong(value);
+				else return usage("Invalid option " + option + " " + value);
+			}
+		}
+		catch (NumberFormatException exception)
+		{
+			return usage("Invalid option value: " + exception.getMessage());
+		}
+		if (size < 1 || operations < 1 || warmupCycles < 0 || measuredCycles < 1)
+			return usage("Sizes & cycles must be positive");
+		if (BenchmarkMain.allocatedBytes() < 0)
+			return usage("This JVM doesn't count the bytes allocated by a thread");
+
+		// reading the counter allocates by itself, so the reading of an empty interval is taken off each cycle:
+		long overhead = Long.MAX_VALUE;
+		for (int i = 0; i < 10; i++)
+		{
+			long allocatedBefore = BenchmarkMain.allocatedBytes();
+			overhead = Math.min(overhead, BenchmarkMain.allocatedBytes() - allocatedBefore);
+		}
+
+		Workload.Sequence sequence = Workload.MIX.generate(size, operations, seed);
+		OrderedStructure structure = OrderedStructure.create("wired");
+		structure.load(sequence.initialStudents);
+		int status = EXIT_SUCCESS;
+		for (int cycle = 1 - warmupCycles; cycle <= measuredCycles; cycle++)
+		{
+			long allocatedBefore = BenchmarkMain.allocatedBytes();
+			long checksum = sequence.apply(structure, 0, sequence.length()) + undo(sequence, structure);
+			long allocated = BenchmarkMain.allocatedBytes() - allocatedBefore - overhead;
+			if (cycle <= 0)
+				continue;
+			System.out.printf("cycle %d: %d operations, %d bytes allocated (checksum %d)%n",
+					cycle, 2 * sequence.length(), allocated, checksum);
+			if (allocated != 0)
+				status = EXIT_ALLOCATED;
+		}
+		System.out.println((status == EXIT_SUCCESS) ? "OK: the steady state churn allocated nothing"
+				: "FAILED: the steady state churn allocated");
+		return status;
+	}
+
+	/* undo a sequence which was applied on the structure, in reverse order, returning the results checksum */
+	private static long undo(Workload.Sequence sequence, OrderedStructure structure)
+	{
+		long checksum = 0;
+		for (int i = sequence.length() - 1; i >= 0; i--)
+		{
+			int id = sequence.ids[i];
+			if (sequence.opcodes[i] == Workload.OP_INSERT)
+				checksum += structure.delete(id) ? 1 : 0;
+			else if (sequence.opcodes[i] == Workload.OP_DELETE)
+				checksum += structure.insert(sequence.studentsById[id]) ? 1 : 0;
+			else checksum += sequence.apply(structure, i, i + 1); // queries are repeated as they are
+		}
+		return checksum;
+	}
+
+	/* print usage message, and return the usage exit status */
+	private static int usage(String error)
+	{
+		System.err.println(error);
+		System.err.println("Usage: java benchmark.AllocationCheck [-size <n>] [-operations <n>] [-warmup <cycles>]"
+				+ " [-cycles <cycles>] [-seed <n>]");
+		return EXIT_USAGE;
+	}
+}
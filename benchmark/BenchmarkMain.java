@@ -0,0 +1,285 @@
+package benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.ref.Reference;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * @author Chanan Welt.
+ * Benchmark harness: runs identical workloads on the wired BST and on the JDK alternatives
+ * (TreeMap, ConcurrentSkipListMap, a sorted array baseline, and the WiredBSTMap adapter),
+ * and appends the measurements to a machine readable CSV results file.
+ *
+ * Usage: BenchmarkMain [options]
+ *   -size <n>              initial number of students (default 100,000)
+ *   -operations <n>        operations in each workload sequence (default 1,000,000)
+ *   -seconds <s>           time limit of each round, slow structures run a prefix of the sequence (default 2)
+ *   -warmup <rounds>       unmeasured rounds before the measured ones (default 2)
+ *   -rounds <rounds>       measured rounds, each one a row of the results (default 3)
+ *   -seed <n>              seed of the generated workloads (default 42)
+ *   -structures <list>     comma separated: wired,treemap,skiplist,array,wiredmap (default all)
+ *   -workloads <list>      comma separated: lookup,scan,median,mix (default all)
+ *   -output <file>         results file, rows are appended (default benchmark-results.csv)
+ *   -fork yes|no           run each structure in a fresh JVM with the same JVM options (default yes)
+ *
+ * Each round loads a new structure with the same initial students, then applies the workload's operations
+ * until the sequence ends or the time limit passes. A row reports the throughput, the bytes allocated
+ * by the benchmark thread per operation & per second, the heap retained by the loaded structure per entry
+ * (the students themselves are created in advance, so only the structure's own overhead is counted),
+ * and a checksum of the results, which is equal for all structures that completed the same operations.
+ * Forking keeps the JIT profile of one structure from slowing down the next ones; for stable numbers,
+ * also fix the heap size (e.g, java -Xms2g -Xmx2g).
+ *
+ * Exit status: 0 - success, 2 - invalid arguments, 3 - the results file could not be written.
+ */
+public class BenchmarkMain
+{
+	// Exit status codes
+	public static final int EXIT_SUCCESS = 0;
+	public static final int EXIT_USAGE = 2;
+	public static final int EXIT_IO_ERROR = 3;
+
+	// Constants
+	private static final int CHUNK_SIZE = 64; // operations between time limit checks
+	private static final String HEADER = "structure,workload,size,round,operations,seconds,opsPerSecond,"
+			+ "allocatedBytesPerOp,allocationMBPerSecond,retainedBytesPerEntry,checksum";
+
+	public static void main(String[] args)
+	{
+		System.exit(run(args));
+	}
+
+	/**
+	 * Run the benchmark.
+	 * @param args - command line arguments (see class documentation).
+	 * @return the exit status.
+	 */
+	public static int run(String[] args)
+	{
+		int size = 100_000, operations = 1_000_000, warmupRounds = 2, measuredRounds = 3;
+		double seconds = 2;
+		long seed = 42;
+		List<String> structures = Arrays.asList(OrderedStructure.NAMES);
+		List<Workload> workloads = Arrays.asList(Workload.values());
+		File outputFile = new File("benchmark-results.csv");
+		boolean fork = true;
+
+		// parse options:
+		try
+		{
+			for (int i = 0; i < args.length; i++)
+			{
+				String option = args[i];
+				if (i + 1 == args.length)
+					return usage("Missing value for " + option);
+				String value = args[++i];
+				if (option.equals("-size"))
+					size = Integer.parseInt(value);
+				else if (option.equals("-operations"))
+					operations = Integer.parseInt(value);
+				else if (option.equals("-seconds"))
+					seconds = Double.parseDouble(value);
+				else if (option.equals("-warmup"))
+					warmupRounds = Integer.parseInt(value);
+				else if (option.equals("-rounds"))
+					measuredRounds = Integer.parseInt(value);
+				else if (option.equals("-seed"))
+					seed = Long.parseLong(value);
+				else if (option.equals("-structures"))
+				{
+					structures = Arrays.asList(value.toLowerCase().split(","));
+					for (String name : structures)
+						if (!Arrays.asList(OrderedStructure.NAMES).contains(name))
+							return usage("Unknown structure " + name);
+				}
+				else if (option.equals("-workloads"))
+				{
+					workloads = new ArrayList<Workload>();
+					for (String name : value.split(","))
+						workloads.add(Workload.valueOf(name.toUpperCase()));
+				}
+				else if (option.equals("-output"))
+					outputFile = new File(value);
+				else if (option.equals("-fork") && value.matches("yes|no"))
+					fork = value.equals("yes");
+				else return usage("Invalid option " + option + " " + value);
+			}
+		}
+		catch (IllegalArgumentException exception)
+		{
+			return usage("Invalid option value: " + exception.getMessage());
+		}
+		if (size < 1 || operations < 1 || seconds <= 0 || warmupRounds < 0 || measuredRounds < 1)
+			return usage("Sizes, rounds & time limit must be positive");
+
+		if (fork)
+		{// each structure in it's own JVM, which appends it's rows to the same file:
+			for (String name : structures)
+			{
+				int status = runForked(args, name);
+				if (status != EXIT_SUCCESS)
+					return status;
+			}
+			return EXIT_SUCCESS;
+		}
+
+		try (PrintWriter output = openResults(outputFile))
+		{
+			// the retained heap of every structure is measured first, before the rounds leave garbage behind:
+			double[] retainedBytes = measureRetainedBytes(structures, Workload.LOOKUP.generate(size, 0, seed));
+			for (int i = 0; i < retainedBytes.length; i++)
+			{
+				String name = structures.get(i);
+				for (Workload workload : workloads)
+				{
+					Workload.Sequence sequence = workload.generate(size, operations, seed);
+					for (int round = 1 - warmupRounds; round <= measuredRounds; round++)
+					{
+						String row = runRound(name, workload, sequence, seconds, retainedBytes[i], round);
+						if (round > 0)
+						{
+							output.println(row);
+							System.out.println(row);
+						}
+					}
+					output.flush();
+				}
+			}
+			if (output.checkError())
+				throw new IOException("Error writing " + outputFile.getPath());
+		}
+		catch (IOException ioException)
+		{
+			System.err.println("Error writing results: " + ioException.getMessage());
+			return EXIT_IO_ERROR;
+		}
+		return EXIT_SUCCESS;
+	}
+
+	/* run one round of a workload on a new structure, and format it's results row */
+	private static String runRound(String name, Workload workload, Workload.Sequence sequence, double seconds,
+			double retainedBytes, int round)
+	{
+		OrderedStructure structure = OrderedStructure.create(name);
+		structure.load(sequence.initialStudents);
+
+		long checksum = 0;
+		int done = 0;
+		long allocatedBefore = allocatedBytes();
+		long startTime = System.nanoTime(), deadline = startTime + (long) (seconds * 1e9);
+		while (done < sequence.length() && System.nanoTime() < deadline)
+		{
+			int to = Math.min(done + CHUNK_SIZE, sequence.length());
+			checksum += sequence.apply(structure, done, to);
+			done = to;
+		}
+		double elapsed = (System.nanoTime() - startTime) / 1e9;
+		long allocated = allocatedBytes() - allocatedBefore;
+
+		// allocation is reported as -1 where the JVM doesn't count allocated bytes per thread:
+		boolean counted = allocatedBefore >= 0;
+		return String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%.6f,%.1f,%.2f,%.2f,%.2f,%d",
+				name, workload.name().toLowerCase(), sequence.initialStudents.length, round, done, elapsed, done / elapsed,
+				counted ? (double) allocated / done : -1.0, counted ? allocated / elapsed / (1 << 20) : -1.0,
+				retainedBytes, checksum);
+	}
+
+	/* the heap retained by each structure loaded with the initial students, per student.
+	   all the structures are kept until the last one is measured, so the heap only grows between the measurements
+	   (a structure dropped just before a measurement isn't always reclaimed by it) */
+	private static double[] measureRetainedBytes(List<String> names, Workload.Sequence sequence)
+	{
+		OrderedStructure[] structures = new OrderedStructure[names.size()];
+		double[] retainedBytes = new double[names.size()];
+		long used = usedHeapAfterGC();
+		for (int i = 0; i < structures.length; i++)
+		{
+			structures[i] = OrderedStructure.create(names.get(i));
+			structures[i].load(sequence.initialStudents);
+			long after = usedHeapAfterGC();
+			retainedBytes[i] = (double) (after - used) / sequence.initialStudents.length;
+			used = after;
+		}
+		Reference.reachabilityFence(structures);
+		return retainedBytes;
+	}
+
+	/* used heap bytes right after full collections, repeated until it's stable, so there is no garbage in it */
+	private static long usedHeapAfterGC()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE, previous;
+		do
+		{
+			previous = used;
+			System.gc();
+			used = runtime.totalMemory() - runtime.freeMemory();
+		} while (used < previous);
+		return used;
+	}
+
+	/* bytes allocated so far by the current thread, or -1 if the JVM doesn't count them */
+	static long allocatedBytes()
+	{
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+
+	/* open the results file for appending, with a header line if it's a new file */
+	private static PrintWriter openResults(File outputFile) throws IOException
+	{
+		boolean newFile = !outputFile.exists() || outputFile.length() == 0;
+		PrintWriter output = new PrintWriter(new FileWriter(outputFile, true));
+		if (newFile)
+			output.println(HEADER);
+		return output;
+	}
+
+	/* run the benchmark of a single structure in a new JVM, with this JVM's options */
+	private static int runForked(String[] args, String name)
+	{
+		List<String> command = new ArrayList<String>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+		command.add("-classpath");
+		command.add(System.getProperty("java.class.path"));
+		command.add(BenchmarkMain.class.getName());
+		command.addAll(Arrays.asList(args)); // later options override the given ones:
+		command.addAll(Arrays.asList("-structures", name, "-fork", "no"));
+		try
+		{
+			return new ProcessBuilder(command).inheritIO().start().waitFor();
+		}
+		catch (IOException ioException)
+		{
+			System.err.println("Error starting benchmark JVM: " + ioException.getMessage());
+			return EXIT_IO_ERROR;
+		}
+		catch (InterruptedException exception)
+		{
+			Thread.currentThread().interrupt();
+			return EXIT_IO_ERROR;
+		}
+	}
+
+	/* print usage message, and return the usage exit status */
+	private static int usage(String error)
+	{
+		System.err.println(error);
+		System.err.println("Usage: java benchmark.BenchmarkMain [-size <n>] [-operations <n>] [-seconds <s>]"
+				+ " [-warmup <rounds>] [-rounds <rounds>] [-seed <n>] [-structures wired,treemap,skiplist,array,wiredmap]"
+				+ " [-workloads lookup,scan,median,mix] [-output <file>] [-fork yes|no]");
+		return EXIT_USAGE;
+	}
+}
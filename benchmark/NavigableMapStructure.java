@@ -0,0 +1,70 @@
+package benchmark;
+
+import java.util.Iterator;
+import java.util.NavigableMap;
+
+import student.Student;
+
+/**
+ * @author Chanan Welt
+ *
+ * NavigableMapStructure - a NavigableMap of students by id (TreeMap, ConcurrentSkipListMap or WiredBSTMap),
+ * used through the map interface only, the way existing code holding a NavigableMap uses it.
+ * The maps have no rank queries, so the median is found by iterating to the middle, in O(n).
+ */
+class NavigableMapStructure implements OrderedStructure
+{
+	private final NavigableMap<Integer, Student> map;
+
+	NavigableMapStructure(NavigableMap<Integer, Student> map)
+	{
+		this.map = map;
+	}
+
+	@Override
+	public void load(Student[] students)
+	{
+		for (Student student : students)
+			map.put(student.getId(), student);
+	}
+
+	@Override
+	public boolean insert(Student student)
+	{
+		return map.putIfAbsent(student.getId(), student) == null;
+	}
+
+	@Override
+	public boolean delete(int id)
+	{
+		return map.remove(id) != null;
+	}
+
+	@Override
+	public Student lookup(int id)
+	{
+		return map.get(id);
+	}
+
+	@Override
+	public long scan(int id, int count)
+	{
+		long sum = 0;
+		Iterator<Student> iterator = map.tailMap(id, true).values().iterator();
+		for (; iterator.hasNext() && count > 0; count--)
+			sum += iterator.next().getId();
+		return sum;
+	}
+
+	@Override
+	public Student median()
+	{
+		int size = map.size();
+		if (size == 0)
+			return null;
+		Iterator<Student> iterator = map.values().iterator();
+		for (int i = (size - 1) / 2; i > 0; i--)
+			iterator.next();
+		return iterator.next();
+	}
+} // end of class
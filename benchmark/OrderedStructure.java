@@ -0,0 +1,64 @@
+package benchmark;
+
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import student.Student;
+import wiredBinarySearchTree.WiredBSTMap;
+
+/**
+ * @author Chanan Welt
+ *
+ * OrderedStructure - the operations of the benchmark workloads, on students ordered by id,
+ * so the same operation sequence could be applied on each of the compared structures.
+ */
+interface OrderedStructure
+{
+	/** names of the compared structures, as given on the command line */
+	String[] NAMES = {"wired", "treemap", "skiplist", "array", "wiredmap"};
+
+	/**
+	 * Create an empty structure by it's name.
+	 * @param name - one of NAMES.
+	 * @return the new structure.
+	 * @throws IllegalArgumentException if there is no such structure.
+	 */
+	static OrderedStructure create(String name)
+	{
+		switch (name)
+		{
+			case "wired": return new WiredStructure();
+			case "treemap": return new NavigableMapStructure(new TreeMap<Integer, Student>());
+			case "skiplist": return new NavigableMapStructure(new ConcurrentSkipListMap<Integer, Student>());
+			case "array": return new SortedArrayStructure();
+			case "wiredmap": return new NavigableMapStructure(new WiredBSTMap<Integer, Student>());
+			default: throw new IllegalArgumentException("Unknown structure: " + name);
+		}
+	}
+
+	/**
+	 * Load the initial students into the empty structure.
+	 * @param students - the students, in the order they should be inserted (their ids are distinct).
+	 */
+	void load(Student[] students);
+
+	/** @return true if the student was inserted, false if the id already exists */
+	boolean insert(Student student);
+
+	/** @return true if the student of the id was deleted, false if it doesn't exist */
+	boolean delete(int id);
+
+	/** @return the student of the id, or null */
+	Student lookup(int id);
+
+	/**
+	 * Scan in ascending order, from the first student whose id is at least the given id.
+	 * @param id - the id to start from.
+	 * @param count - the maximal number of students to visit.
+	 * @return the sum of the visited ids.
+	 */
+	long scan(int id, int count);
+
+	/** @return the (lower) median student, or null if the structure is empty */
+	Student median();
+} // end of interface
@@ -0,0 +1,96 @@
+package benchmark;
+
+import java.util.Arrays;
+
+import student.Student;
+
+/**
+ * @author Chanan Welt
+ *
+ * SortedArrayStructure - the baseline: parallel arrays of ids & students, sorted by id.
+ * Lookups are binary searches over the primitive ids, scans & the median are index arithmetic,
+ * while inserts & deletes shift the tail of the arrays, in O(n).
+ */
+class SortedArrayStructure implements OrderedStructure
+{
+	private int[] ids = new int[16];
+	private Student[] students = new Student[16];
+	private int size;
+
+	@Override
+	public void load(Student[] initial)
+	{
+		Student[] sorted = initial.clone();
+		Arrays.sort(sorted);
+		ensureCapacity(sorted.length);
+		for (Student student : sorted)
+		{
+			ids[size] = student.getId();
+			students[size++] = student;
+		}
+	}
+
+	@Override
+	public boolean insert(Student student)
+	{
+		int index = Arrays.binarySearch(ids, 0, size, student.getId());
+		if (index >= 0)
+			return false;
+		index = -index - 1;
+		ensureCapacity(size + 1);
+		System.arraycopy(ids, index, ids, index + 1, size - index);
+		System.arraycopy(students, index, students, index + 1, size - index);
+		ids[index] = student.getId();
+		students[index] = student;
+		size++;
+		return true;
+	}
+
+	@Override
+	public boolean delete(int id)
+	{
+		int index = Arrays.binarySearch(ids, 0, size, id);
+		if (index < 0)
+			return false;
+		size--;
+		System.arraycopy(ids, index + 1, ids, index, size - index);
+		System.arraycopy(students, index + 1, students, index, size - index);
+		students[size] = null;
+		return true;
+	}
+
+	@Override
+	public Student lookup(int id)
+	{
+		int index = Arrays.binarySearch(ids, 0, size, id);
+		return (index < 0) ? null : students[index];
+	}
+
+	@Override
+	public long scan(int id, int count)
+	{
+		int index = Arrays.binarySearch(ids, 0, size, id);
+		if (index < 0)
+			index = -index - 1;
+		long sum = 0;
+		for (int end = Math.min(size, index + count); index < end; index++)
+			sum += ids[index];
+		return sum;
+	}
+
+	@Override
+	public Student median()
+	{
+		return (size == 0) ? null : students[(size - 1) / 2];
+	}
+
+	/* grow the arrays by half, to hold at least the given number of students */
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity <= ids.length)
+			return;
+		capacity = Math.max(capacity, ids.length + (ids.length >> 1));
+		ids = Arrays.copyOf(ids, capacity);
+		students = Arrays.copyOf(students, capacity);
+	}
+} // end of class
@@ -0,0 +1,79 @@
+package benchmark;
+
+import java.util.function.ToIntFunction;
+
+import javax.management.openmbean.KeyAlreadyExistsException;
+
+import binaryTree.BSTNode;
+import student.Student;
+import wiredBinarySearchTree.WiredBST;
+
+/**
+ * @author Chanan Welt
+ *
+ * WiredStructure - the wired BST, used the way the application uses it:
+ * searches & deletes by the int id (no probe students), deleted nodes are released for recycling,
+ * scans follow the successor threads, and the median is maintained by the tree.
+ */
+class WiredStructure implements OrderedStructure
+{
+	private static final ToIntFunction<Student> ID = Student::getId;
+
+	private final WiredBST<Student> tree = new WiredBST<Student>();
+
+	@Override
+	public void load(Student[] students)
+	{
+		for (Student student : students)
+			tree.insert(student);
+	}
+
+	@Override
+	public boolean insert(Student student)
+	{
+		// one descent: the workloads insert absent ids, so the duplicate exception is not expected on the fast path:
+		try
+		{
+			tree.insert(student);
+			return true;
+		}
+		catch (KeyAlreadyExistsException exception)
+		{
+			return false;
+		}
+	}
+
+	@Override
+	public boolean delete(int id)
+	{
+		BSTNode<Student> node = tree.deleteByKey(id, ID);
+		if (node == null)
+			return false;
+		tree.release(node);
+		return true;
+	}
+
+	@Override
+	public Student lookup(int id)
+	{
+		BSTNode<Student> node = tree.searchByKey(id, ID);
+		return (node == null) ? null : node.getData();
+	}
+
+	@Override
+	public long scan(int id, int count)
+	{
+		long sum = 0;
+		BSTNode<Student> node = (id == Integer.MIN_VALUE) ? tree.getMinimum(tree.getRoot()) : tree.higherByKey(id - 1, ID);
+		for (; node != null && count > 0; count--, node = tree.getSuccessor(node))
+			sum += node.getData().getId();
+		return sum;
+	}
+
+	@Override
+	public Student median()
+	{
+		BSTNode<Student> node = tree.getMedian();
+		return (node == null) ? null : node.getData();
+	}
+} // end of class
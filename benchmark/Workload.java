@@ -0,0 +1,160 @@
+package benchmark;
+
+import java.util.Random;
+
+import student.Student;
+
+/**
+ * @author Chanan Welt
+ *
+ * Workload - the benchmark workloads, each generated as a fixed sequence of operations from a seed,
+ * so that every structure runs exactly the same operations, in the same order, from the same initial content.
+ * Like a CommandBatch, a sequence is kept in compact primitive arrays (an op-code & an id per operation),
+ * and all the students are created in advance, so running a sequence allocates nothing but what the structure does.
+ *
+ * The ids are drawn from [0, 2n): the initial n students are a random half of them, and the other half
+ * is inserted by the mutating workloads, which keep the size around n by deleting existing students.
+ */
+enum Workload
+{
+	LOOKUP, // point lookups, about half of them miss
+	SCAN, // successor scans of SCAN_LENGTH students from a random id
+	MEDIAN, // insert or delete, each followed by a median query
+	MIX; // 50% lookups, 25% inserts & 25% deletes
+
+	// Constants
+	static final int SCAN_LENGTH = 100;
+
+	// op-codes of the operations:
+	static final byte OP_LOOKUP = 0;
+	static final byte OP_SCAN = 1;
+	static final byte OP_MEDIAN = 2;
+	static final byte OP_INSERT = 3;
+	static final byte OP_DELETE = 4;
+
+	/** The operations of a workload, and the students they work on */
+	static final class Sequence
+	{
+		final Student[] initialStudents; // in insertion order
+		final Student[] studentsById; // all the students which the operations could insert
+		final byte[] opcodes;
+		final int[] ids;
+
+		private Sequence(Student[] initialStudents, Student[] studentsById, byte[] opcodes, int[] ids)
+		{
+			this.initialStudents = initialStudents;
+			this.studentsById = studentsById;
+			this.opcodes = opcodes;
+			this.ids = ids;
+		}
+
+		int length() {return opcodes.length;}
+
+		/**
+		 * Apply a range of the operations on a structure.
+		 * @param structure - the structure, loaded with the initial students and the operations before from.
+		 * @param from - index of the first operation.
+		 * @param to - index after the last operation.
+		 * @return a checksum of the results, equal for all structures which run the same operations.
+		 */
+		long apply(OrderedStructure structure, int from, int to)
+		{
+			long checksum = 0;
+			for (int i = from; i < to; i++)
+			{
+				Student student;
+				switch (opcodes[i])
+				{
+					case OP_LOOKUP:
+						student = structure.lookup(ids[i]);
+						checksum += (student == null) ? -1 : student.getId();
+						break;
+					case OP_SCAN:
+						checksum += structure.scan(ids[i], SCAN_LENGTH);
+						break;
+					case OP_MEDIAN:
+						student = structure.median();
+						checksum += (student == null) ? -1 : student.getId();
+						break;
+					case OP_INSERT:
+						checksum += structure.insert(studentsById[ids[i]]) ? 1 : 0;
+						break;
+					default: // OP_DELETE
+						checksum += structure.delete(ids[i]) ? 1 : 0;
+				}
+			}
+			return checksum;
+		}
+	}
+
+	/**
+	 * Generate the operations of this workload.
+	 * @param size - the number of initial students (n).
+	 * @param operations - the number of operations.
+	 * @param seed - the seed of the random ids.
+	 * @return the sequence of operations.
+	 */
+	Sequence generate(int size, int operations, long seed)
+	{
+		Random random = new Random(seed);
+		Student[] studentsById = new Student[2 * size];
+		for (int id = 0; id < studentsById.length; id++)
+			studentsById[id] = new Student(id, null);
+
+		// a random half of the ids is present at first (shuffled, so this is also the insertion order):
+		int[] present = new int[2 * size], absent = new int[2 * size];
+		for (int id = 0; id < present.length; id++)
+			present[id] = id;
+		for (int i = present.length - 1; i > 0; i--)
+		{
+			int j = random.nextInt(i + 1), id = present[i];
+			present[i] = present[j];
+			present[j] = id;
+		}
+		int presentCount = size, absentCount = size;
+		System.arraycopy(present, size, absent, 0, size);
+		Student[] initialStudents = new Student[size];
+		for (int i = 0; i < size; i++)
+			initialStudents[i] = studentsById[present[i]];
+
+		// the operations, tracking which ids are present, so inserts & deletes always succeed:
+		byte[] opcodes = new byte[operations];
+		int[] ids = new int[operations];
+		for (int i = 0; i < operations; i++)
+		{
+			byte opcode;
+			switch (this)
+			{
+				case LOOKUP: opcode = OP_LOOKUP; break;
+				case SCAN: opcode = OP_SCAN; break;
+				case MEDIAN: opcode = (i % 2 == 1) ? OP_MEDIAN : (i % 4 == 0) ? OP_INSERT : OP_DELETE; break;
+				default: // MIX
+					int dice = random.nextInt(4);
+					opcode = (dice < 2) ? OP_LOOKUP : (dice == 2) ? OP_INSERT : OP_DELETE;
+			}
+			if (opcode == OP_INSERT && absentCount == 0)
+				opcode = OP_DELETE;
+			else if (opcode == OP_DELETE && presentCount == 0)
+				opcode = OP_INSERT;
+
+			opcodes[i] = opcode;
+			if (opcode == OP_INSERT)
+			{// move a random absent id to the present ids:
+				int j = random.nextInt(absentCount);
+				ids[i] = absent[j];
+				absent[j] = absent[--absentCount];
+				present[presentCount++] = ids[i];
+			}
+			else if (opcode == OP_DELETE)
+			{// move a random present id to the absent ids:
+				int j = random.nextInt(presentCount);
+				ids[i] = present[j];
+				present[j] = present[--presentCount];
+				absent[absentCount++] = ids[i];
+			}
+			else if (opcode != OP_MEDIAN)
+				ids[i] = random.nextInt(2 * size);
+		}
+		return new Sequence(initialStudents, studentsById, opcodes, ids);
+	}
+} // end of enum
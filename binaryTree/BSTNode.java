@@ -15,6 +15,8 @@ public class BSTNode<T extends Comparable<T>>
 	private BSTNode<T> parent; 
 	private BSTNode<T> right;
 	private BSTNode<T> left;
+	private int height; // height of the sub-tree rooted in this node (maintained by the tree, zero for a leaf)
+	private int size; // number of nodes in the sub-tree rooted in this node (maintained by the tree)
 	
 	/** Constructor */ 
 	public BSTNode(T dataElement)
@@ -23,6 +25,8 @@ public class BSTNode<T extends Comparable<T>>
 		parent = null;
 		right = null;
 		left = null;
+		height = 0;
+		size = 1;
 	}
 	
 	// Basic getters (access methods): 
@@ -30,12 +34,16 @@ public class BSTNode<T extends Comparable<T>>
 	public BSTNode<T> getParent() {return parent;}
 	public BSTNode<T> getRight() {return right;}
 	public BSTNode<T> getLeft() {return left;}
+	public int getHeight() {return height;}
+	public int getSize() {return size;}
 	
 	// Basic setters (modification methods): 
 	public void setData(T dataElement) {this.data = dataElement;}
 	public void setParent(BSTNode<T> parent) {this.parent = parent;}
 	public void setRight(BSTNode<T> right) {this.right = right;}
 	public void setLeft(BSTNode<T> left) {this.left = left;}
+	public void setHeight(int height) {this.height = height;}
+	public void setSize(int size) {this.size = size;}
 
 	/** Determine if a given pointer is pointing to real child or a wire */
 	public boolean isPointerWired(BSTNode<T> child)
@@ -0,0 +1,4 @@
+if not exist bin mkdir bin
+javac -d bin binaryTree\*.java student\*.java wiredBinarySearchTree\*.java ioHandler\*.java treeGUI\*.java main\*.java benchmark\*.java check\*.java
+if errorlevel 1 exit /b 1
+xcopy /s /i /y /q treeGUI\icons bin\treeGUI\icons >nul
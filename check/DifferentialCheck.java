@@ -0,0 +1,525 @@
+package check;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import wiredBinarySearchTree.WiredBSTMap;
+import wiredBinarySearchTree.WiredBSTSet;
+
+/**
+ * @author Chanan Welt.
+ * Differential check of the WiredBSTMap & WiredBSTSet adapters against TreeMap & TreeSet:
+ * the same random operations are applied on both, directly or through random nested views (sub, head, tail & descending),
+ * and every outcome - the returned value, or the type of the thrown exception - must be the same.
+ * Iterators are compared as well, including removal & setValue through them, and failing fast on a concurrent modification.
+ * Keys are drawn from a small range, so operations often hit existing keys, view bounds & empty views.
+ *
+ * Usage: DifferentialCheck [options]
+ *   -operations <n>        random operations on each of the map & the set (default 60,000)
+ *   -seed <n>              seed of the random operations (default 11)
+ *
+ * Exit status: 0 - all outcomes were the same, 1 - an outcome differed, 2 - invalid arguments.
+ */
+public class DifferentialCheck
+{
+	// Exit status codes
+	public static final int EXIT_SUCCESS = 0;
+	public static final int EXIT_MISMATCH = 1;
+	public static final int EXIT_USAGE = 2;
+
+	// Constants
+	private static final int KEY_RANGE = 60;
+	private static final int INITIAL_ELEMENTS = 30; // elements of a fresh pair of structures
+	private static final int OPERATIONS_PER_ROUND = 40; // operations on a pair of structures, before fresh ones are created
+	private static final int MAX_VIEW_DEPTH = 3;
+
+	// Instance variables
+	private final Random random;
+	private Integer currentKey; // key of the current operation (null keys may be rejected where TreeMap doesn't look at them)
+	private String currentStep; // description of the current operation, for the failure report
+
+	/**
+	 * Constructor
+	 * @param seed - seed of the random operations.
+	 */
+	public DifferentialCheck(long seed)
+	{
+		random = new Random(seed);
+	}
+
+	public static void main(String[] args)
+	{
+		System.exit(run(args));
+	}
+
+	/**
+	 * Run the check.
+	 * @param args - command line arguments (see class documentation).
+	 * @return the exit status.
+	 */
+	public static int run(String[] args)
+	{
+		int operations = 60_000;
+		long seed = 11;
+
+		// parse options:
+		try
+		{
+			for (int i = 0; i < args.length; i++)
+			{
+				String option = args[i];
+				if (i + 1 == args.length)
+					return usage("Missing value for " + option);
+				String value = args[++i];
+				if (option.equals("-operations"))
+					operations = Integer.parseInt(value);
+				else if (option.equals("-seed"))
+					seed = Long.parseLong(value);
+				else return usage("Invalid option " + option + " " + value);
+			}
+		}
+		catch (NumberFormatException exception)
+		{
+			return usage("Invalid option value: " + exception.getMessage());
+		}
+		if (operations < 1)
+			return usage("Operations must be positive");
+
+		DifferentialCheck check = new DifferentialCheck(seed);
+		try
+		{
+			check.checkMaps(operations);
+			check.checkSets(operations);
+		}
+		catch (Mismatch mismatch)
+		{
+			System.out.println("FAILED: " + check.currentStep + ": " + mismatch.getMessage() + " (seed " + seed + ")");
+			return EXIT_MISMATCH;
+		}
+		System.out.printf("OK: %d map & %d set operations had the same outcomes as TreeMap & TreeSet%n", operations, operations);
+		return EXIT_SUCCESS;
+	}
+
+	/**
+	 * Compare WiredBSTMap with TreeMap: random operations on fresh pairs of maps, and copy construction.
+	 * @param operations - number of random operations.
+	 * @throws Mismatch on the first operation with a different outcome.
+	 */
+	public void checkMaps(int operations)
+	{
+		for (int step = 0; step < operations; step++)
+		{
+			if (step % OPERATIONS_PER_ROUND == 0)
+			{
+				TreeMap<Integer, String> expected = new TreeMap<Integer, String>();
+				WiredBSTMap<Integer, String> actual = new WiredBSTMap<Integer, String>();
+				for (int i = 0; i < INITIAL_ELEMENTS; i++)
+				{
+					int key = random.nextInt(KEY_RANGE);
+					String value = "v" + random.nextInt(5);
+					expected.put(key, value);
+					actual.put(key, value);
+				}
+				mapRound(expected, actual, step, Math.min(OPERATIONS_PER_ROUND, operations - step));
+			}
+		}
+
+		// copy construction, from a sorted map (bulk build) and from an unsorted one:
+		TreeMap<Integer, String> sorted = new TreeMap<Integer, String>();
+		for (int i = 0; i < 1000; i++)
+			sorted.put(random.nextInt(5000), "v" + i);
+		currentKey = 0;
+		currentStep = "copy construction";
+		compare("copy of a sorted map", () -> sorted, () -> new WiredBSTMap<Integer, String>(sorted));
+		compare("copy of a hash map", () -> sorted, () -> new WiredBSTMap<Integer, String>(new HashMap<Integer, String>(sorted)));
+	}
+
+	/* apply random operations on a pair of maps, each through a random view */
+	private void mapRound(TreeMap<Integer, String> expectedMap, WiredBSTMap<Integer, String> actualMap, int firstStep, int operations)
+	{
+		for (int step = firstStep; step < firstStep + operations; step++)
+		{
+			// pick a random nested view of both maps:
+			NavigableMap<Integer, String> expected = expectedMap, actual = actualMap;
+			StringBuilder views = new StringBuilder("map");
+			for (int depth = random.nextInt(MAX_VIEW_DEPTH + 1); depth > 0; depth--)
+			{
+				View view = new View(random);
+				views.append('.').append(view);
+				currentKey = 0;
+				currentStep = "operation " + step + " on " + views;
+				NavigableMap<Integer, String> expectedView = expected, actualView = actual;
+				compare("view size", () -> view.of(expectedView).size(), () -> view.of(actualView).size());
+				try
+				{
+					expected = view.of(expected);
+					actual = view.of(actual);
+				}
+				catch (IllegalArgumentException exception)
+				{
+					break; // both rejected the bounds, which are outside of the parent view
+				}
+			}
+			mapOperation(expectedMap, actualMap, expected, actual, views.toString(), step);
+		}
+		currentStep = "end of round";
+		compare("content", () -> expectedMap, () -> actualMap);
+	}
+
+	/* apply a random operation on a view of both maps */
+	private void mapOperation(TreeMap<Integer, String> expectedMap, WiredBSTMap<Integer, String> actualMap,
+			NavigableMap<Integer, String> expected, NavigableMap<Integer, String> actual, String views, int step)
+	{
+		Integer key = (random.nextInt(10) == 0) ? null : Integer.valueOf(random.nextInt(KEY_RANGE));
+		String value = "v" + random.nextInt(5);
+		int operation = random.nextInt(24);
+		currentKey = key;
+		currentStep = "operation " + step + " (" + operation + ") on " + views + " with key " + key;
+		switch (operation)
+		{
+			case 0: compare("put", () -> expected.put(key, value), () -> actual.put(key, value)); break;
+			case 1: compare("get", () -> expected.get(key), () -> actual.get(key)); break;
+			case 2: compare("remove", () -> expected.remove(key), () -> actual.remove(key)); break;
+			case 3: compare("containsKey", () -> expected.containsKey(key), () -> actual.containsKey(key)); break;
+			case 4: compare("lowerEntry", () -> expected.lowerEntry(key), () -> actual.lowerEntry(key)); break;
+			case 5: compare("floorKey", () -> expected.floorKey(key), () -> actual.floorKey(key)); break;
+			case 6: compare("ceilingEntry", () -> expected.ceilingEntry(key), () -> actual.ceilingEntry(key)); break;
+			case 7: compare("higherKey", () -> expected.higherKey(key), () -> actual.higherKey(key)); break;
+			case 8:
+				compare("firstKey", () -> expected.firstKey(), () -> actual.firstKey());
+				compare("firstEntry", () -> expected.firstEntry(), () -> actual.firstEntry());
+				break;
+			case 9:
+				compare("lastKey", () -> expected.lastKey(), () -> actual.lastKey());
+				compare("lastEntry", () -> expected.lastEntry(), () -> actual.lastEntry());
+				break;
+			case 10: compare("pollFirstEntry", () -> expected.pollFirstEntry(), () -> actual.pollFirstEntry()); break;
+			case 11: compare("pollLastEntry", () -> expected.pollLastEntry(), () -> actual.pollLastEntry()); break;
+			case 12:
+				compare("size", () -> expected.size(), () -> actual.size());
+				compare("isEmpty", () -> expected.isEmpty(), () -> actual.isEmpty());
+				break;
+			case 13:
+				compare("toString", () -> expected.toString(), () -> actual.toString());
+				compare("equals", () -> true, () -> actual.equals(expected) && expected.equals(actual));
+				compare("hashCode", () -> expected.hashCode(), () -> actual.hashCode());
+				break;
+			case 14: compareEntryIteration(expected, actual); break;
+			case 15:
+				compare("keys", () -> new ArrayList<Integer>(expected.navigableKeySet()), () -> new ArrayList<Integer>(actual.navigableKeySet()));
+				compare("descending keys", () -> new ArrayList<Integer>(expected.descendingKeySet()),
+						() -> new ArrayList<Integer>(actual.descendingKeySet()));
+				compare("values", () -> new ArrayList<String>(expected.values()), () -> new ArrayList<String>(actual.values()));
+				break;
+			case 16:
+				if (random.nextInt(4) == 0)
+				{
+					expected.clear();
+					actual.clear();
+				}
+				compare("clear", () -> expectedMap, () -> actualMap);
+				break;
+			case 17:
+			{// through the key set view:
+				NavigableSet<Integer> expectedKeys = expected.navigableKeySet(), actualKeys = actual.navigableKeySet();
+				compare("keys remove", () -> expectedKeys.remove(key), () -> actualKeys.remove(key));
+				compare("keys lower", () -> expectedKeys.lower(key), () -> actualKeys.lower(key));
+				compare("keys pollLast", () -> expectedKeys.pollLast(), () -> actualKeys.pollLast());
+				compare("keys add", () -> expectedKeys.add(3), () -> actualKeys.add(3));
+				compare("keys descending iterator", () -> listOf(expectedKeys.descendingIterator()), () -> listOf(actualKeys.descendingIterator()));
+				break;
+			}
+			case 18:
+			{// through the entry set view:
+				Map.Entry<Integer, String> entry = new AbstractMap.SimpleEntry<Integer, String>(key, value);
+				compare("entries contains", () -> expected.entrySet().contains(entry), () -> actual.entrySet().contains(entry));
+				compare("entries remove", () -> expected.entrySet().remove(entry), () -> actual.entrySet().remove(entry));
+				break;
+			}
+			case 19: compare("comparator", () -> expected.comparator() == null, () -> actual.comparator() == null); break;
+			case 20: compare("containsValue", () -> expected.containsValue(value), () -> actual.containsValue(value)); break;
+			case 21:
+			{// an iterator fails fast after the backing map was modified:
+				if (expected.isEmpty())
+					break;
+				Iterator<Integer> expectedIterator = expected.keySet().iterator(), actualIterator = actual.keySet().iterator();
+				expectedIterator.next();
+				actualIterator.next();
+				int newKey = KEY_RANGE + random.nextInt(KEY_RANGE);
+				expectedMap.put(newKey, value);
+				actualMap.put(newKey, value);
+				compare("next after modification", () -> expectedIterator.next(), () -> actualIterator.next());
+				break;
+			}
+			case 22: compare("put null value", () -> expected.put(key, null), () -> actual.put(key, null)); break;
+			default: compare("content", () -> expectedMap, () -> actualMap);
+		}
+	}
+
+	/* iterate the entries of both maps together, removing & setting some of them through the iterators */
+	private void compareEntryIteration(NavigableMap<Integer, String> expected, NavigableMap<Integer, String> actual)
+	{
+		Iterator<Map.Entry<Integer, String>> expectedIterator = expected.entrySet().iterator(), actualIterator = actual.entrySet().iterator();
+		while (expectedIterator.hasNext())
+		{
+			compare("hasNext", () -> true, () -> actualIterator.hasNext());
+			Map.Entry<Integer, String> expectedEntry = expectedIterator.next(), actualEntry = actualIterator.next();
+			compare("next", () -> expectedEntry, () -> actualEntry);
+			if (random.nextInt(3) == 0)
+			{
+				expectedIterator.remove();
+				actualIterator.remove();
+			}
+			else if (random.nextInt(5) == 0)
+				compare("setValue", () -> expectedEntry.setValue("s"), () -> actualEntry.setValue("s"));
+		}
+		compare("hasNext at end", () -> false, () -> actualIterator.hasNext());
+		compare("remove before next", () -> removeFirst(expected.keySet().iterator()), () -> removeFirst(actual.keySet().iterator()));
+	}
+
+	/**
+	 * Compare WiredBSTSet with TreeSet: random operations on fresh pairs of sets.
+	 * @param operations - number of random operations.
+	 * @throws Mismatch on the first operation with a different outcome.
+	 */
+	public void checkSets(int operations)
+	{
+		for (int step = 0; step < operations; step++)
+		{
+			if (step % OPERATIONS_PER_ROUND == 0)
+			{
+				TreeSet<Integer> expected = new TreeSet<Integer>();
+				WiredBSTSet<Integer> actual = new WiredBSTSet<Integer>();
+				for (int i = 0; i < INITIAL_ELEMENTS; i++)
+				{
+					int element = random.nextInt(KEY_RANGE);
+					expected.add(element);
+					actual.add(element);
+				}
+				setRound(expected, actual, step, Math.min(OPERATIONS_PER_ROUND, operations - step));
+			}
+		}
+	}
+
+	/* apply random operations on a pair of sets, each through a random view */
+	private void setRound(TreeSet<Integer> expectedSet, WiredBSTSet<Integer> actualSet, int firstStep, int operations)
+	{
+		for (int step = firstStep; step < firstStep + operations; step++)
+		{
+			// pick a random nested view of both sets:
+			NavigableSet<Integer> expected = expectedSet, actual = actualSet;
+			StringBuilder views = new StringBuilder("set");
+			for (int depth = random.nextInt(MAX_VIEW_DEPTH + 1); depth > 0; depth--)
+			{
+				View view = new View(random);
+				views.append('.').append(view);
+				currentKey = 0;
+				currentStep = "operation " + step + " on " + views;
+				NavigableSet<Integer> expectedView = expected, actualView = actual;
+				compare("view size", () -> view.of(expectedView).size(), () -> view.of(actualView).size());
+				try
+				{
+					expected = view.of(expected);
+					actual = view.of(actual);
+				}
+				catch (IllegalArgumentException exception)
+				{
+					break; // both rejected the bounds, which are outside of the parent view
+				}
+			}
+			setOperation(expectedSet, actualSet, expected, actual, views.toString(), step);
+		}
+		currentStep = "end of round";
+		compare("content", () -> expectedSet, () -> actualSet);
+	}
+
+	/* apply a random operation on a view of both sets */
+	private void setOperation(TreeSet<Integer> expectedSet, WiredBSTSet<Integer> actualSet,
+			NavigableSet<Integer> expected, NavigableSet<Integer> actual, String views, int step)
+	{
+		Integer element = (random.nextInt(10) == 0) ? null : Integer.valueOf(random.nextInt(KEY_RANGE));
+		int operation = random.nextInt(14);
+		currentKey = element;
+		currentStep = "operation " + step + " (" + operation + ") on " + views + " with element " + element;
+		switch (operation)
+		{
+			case 0: compare("add", () -> expected.add(element), () -> actual.add(element)); break;
+			case 1: compare("remove", () -> expected.remove(element), () -> actual.remove(element)); break;
+			case 2: compare("contains", () -> expected.contains(element), () -> actual.contains(element)); break;
+			case 3:
+				compare("lower", () -> expected.lower(element), () -> actual.lower(element));
+				compare("floor", () -> expected.floor(element), () -> actual.floor(element));
+				break;
+			case 4:
+				compare("ceiling", () -> expected.ceiling(element), () -> actual.ceiling(element));
+				compare("higher", () -> expected.higher(element), () -> actual.higher(element));
+				break;
+			case 5:
+				compare("first", () -> expected.first(), () -> actual.first());
+				compare("last", () -> expected.last(), () -> actual.last());
+				break;
+			case 6: compare("pollFirst", () -> expected.pollFirst(), () -> actual.pollFirst()); break;
+			case 7: compare("pollLast", () -> expected.pollLast(), () -> actual.pollLast()); break;
+			case 8:
+				compare("size", () -> expected.size(), () -> actual.size());
+				compare("isEmpty", () -> expected.isEmpty(), () -> actual.isEmpty());
+				break;
+			case 9:
+				compare("toString", () -> expected.toString(), () -> actual.toString());
+				compare("equals", () -> true, () -> actual.equals(expected) && expected.equals(actual));
+				compare("hashCode", () -> expected.hashCode(), () -> actual.hashCode());
+				break;
+			case 10:
+			{// iterate both sets together, removing some of the elements through the iterators:
+				Iterator<Integer> expectedIterator = expected.iterator(), actualIterator = actual.iterator();
+				while (expectedIterator.hasNext())
+				{
+					compare("hasNext", () -> true, () -> actualIterator.hasNext());
+					compare("next", () -> expectedIterator.next(), () -> actualIterator.next());
+					if (random.nextInt(3) == 0)
+					{
+						expectedIterator.remove();
+						actualIterator.remove();
+					}
+				}
+				compare("hasNext at end", () -> false, () -> actualIterator.hasNext());
+				break;
+			}
+			case 11: compare("descending iterator", () -> listOf(expected.descendingIterator()), () -> listOf(actual.descendingIterator())); break;
+			case 12:
+				if (random.nextInt(4) == 0)
+				{
+					expected.clear();
+					actual.clear();
+				}
+				compare("clear", () -> expectedSet, () -> actualSet);
+				break;
+			default: compare("content", () -> expectedSet, () -> actualSet);
+		}
+	}
+
+	/*
+	 * Apply an operation on the reference & on the checked structure, and compare the outcomes.
+	 * A null key may also be rejected with NullPointerException where TreeMap doesn't compare it (e.g, in an empty map).
+	 */
+	private void compare(String operation, Supplier<Object> expected, Supplier<Object> actual)
+	{
+		String expectedOutcome = outcomeOf(expected), actualOutcome = outcomeOf(actual);
+		if (expectedOutcome.equals(actualOutcome))
+			return;
+		if (currentKey == null && actualOutcome.equals("threw NullPointerException"))
+			return;
+		throw new Mismatch(operation + " " + expectedOutcome + " on the reference, but " + actualOutcome);
+	}
+
+	/* utility method: the outcome of an operation, as a returned value or a thrown exception */
+	private static String outcomeOf(Supplier<Object> operation)
+	{
+		try
+		{
+			return "returned " + operation.get();
+		}
+		catch (RuntimeException exception)
+		{
+			return "threw " + exception.getClass().getSimpleName();
+		}
+	}
+
+	/* utility method: the remaining elements of an iterator */
+	private static List<Integer> listOf(Iterator<Integer> iterator)
+	{
+		List<Integer> elements = new ArrayList<Integer>();
+		iterator.forEachRemaining(elements::add);
+		return elements;
+	}
+
+	/* utility method: remove through an iterator before calling next (which must fail) */
+	private static Object removeFirst(Iterator<Integer> iterator)
+	{
+		iterator.remove();
+		return iterator.hasNext();
+	}
+
+	/* print usage message, and return the usage exit status */
+	private static int usage(String error)
+	{
+		System.err.println(error);
+		System.err.println("Usage: java check.DifferentialCheck [-operations <n>] [-seed <n>]");
+		return EXIT_USAGE;
+	}
+
+	/* a random view (sub, head, tail or descending), which is created the same way on the reference & the checked structure */
+	private static class View
+	{
+		private final int kind;
+		private final int from, to;
+		private final boolean fromInclusive, toInclusive;
+
+		View(Random random)
+		{
+			kind = random.nextInt(5);
+			from = random.nextInt(KEY_RANGE);
+			to = random.nextInt(KEY_RANGE);
+			fromInclusive = random.nextBoolean();
+			toInclusive = random.nextBoolean();
+		}
+
+		NavigableMap<Integer, String> of(NavigableMap<Integer, String> map)
+		{
+			switch (kind)
+			{
+				case 0: return map.subMap(from, fromInclusive, to, toInclusive);
+				case 1: return map.headMap(to, toInclusive);
+				case 2: return map.tailMap(from, fromInclusive);
+				case 3: return map.descendingMap();
+				default: return map.subMap(from, true, to, false); // the SortedMap form
+			}
+		}
+
+		NavigableSet<Integer> of(NavigableSet<Integer> set)
+		{
+			switch (kind)
+			{
+				case 0: return set.subSet(from, fromInclusive, to, toInclusive);
+				case 1: return set.headSet(to, toInclusive);
+				case 2: return set.tailSet(from, fromInclusive);
+				case 3: return set.descendingSet();
+				default: return set.subSet(from, true, to, false);
+			}
+		}
+
+		@Override
+		public String toString()
+		{
+			switch (kind)
+			{
+				case 0: return "sub" + (fromInclusive ? "[" : "(") + from + "," + to + (toInclusive ? "]" : ")");
+				case 1: return "head(" + to + (toInclusive ? "]" : ")");
+				case 2: return "tail" + (fromInclusive ? "[" : "(") + from + ")";
+				case 3: return "descending";
+				default: return "sub[" + from + "," + to + ")";
+			}
+		}
+	}
+
+	/* an operation had a different outcome on the checked structure */
+	private static class Mismatch extends RuntimeException
+	{
+		private static final long serialVersionUID = 1L;
+
+		Mismatch(String message)
+		{
+			super(message);
+		}
+	}
+}
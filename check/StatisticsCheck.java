@@ -0,0 +1,166 @@
+package check;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import binaryTree.BSTNode;
+import wiredBinarySearchTree.WiredBST;
+
+/**
+ * @author Chanan Welt.
+ * Statistics check: validates the height, size & level statistics which the wired tree maintains on inserts & deletes
+ * (see WiredBST.validateStatistics) after every operation, and the tree's content against a TreeSet.
+ * - random inserts & deletes, on a tree which is built by inserts, and on one which is built from a sorted list,
+ *   where the sub-trees which deletes move a level up are mostly small, and their levels are shifted node by node.
+ * - a list like tree (ascending inserts), from which keys near the root are deleted, so the whole rest of it moves up,
+ *   which is too large to shift, so the levels are counted again by the next level query.
+ *
+ * Usage: StatisticsCheck [options]
+ *   -operations <n>        random inserts & deletes on each tree (default 20,000)
+ *   -keys <n>              range of the random keys (default 3,000)
+ *   -chain <n>             size of the list like tree (default 5,000)
+ *   -seed <n>              seed of the random operations (default 7)
+ *
+ * Exit status: 0 - the statistics & content were valid all along, 1 - they were not, 2 - invalid arguments.
+ */
+public class StatisticsCheck
+{
+	// Exit status codes
+	public static final int EXIT_SUCCESS = 0;
+	public static final int EXIT_INVALID = 1;
+	public static final int EXIT_USAGE = 2;
+
+	public static void main(String[] args)
+	{
+		System.exit(run(args));
+	}
+
+	/**
+	 * Run the check.
+	 * @param args - command line arguments (see class documentation).
+	 * @return the exit status.
+	 */
+	public static int run(String[] args)
+	{
+		int operations = 20_000, keyRange = 3_000, chainSize = 5_000;
+		long seed = 7;
+
+		// parse options:
+		try
+		{
+			for (int i = 0; i < args.length; i++)
+			{
+				String option = args[i];
+				if (i + 1 == args.length)
+					return usage("Missing value for " + option);
+				String value = args[++i];
+				if (option.equals("-operations"))
+					operations = Integer.parseInt(value);
+				else if (option.equals("-keys"))
+					keyRange = Integer.parseInt(value);
+				else if (option.equals("-chain"))
+					chainSize = Integer.parseInt(value);
+				else if (option.equals("-seed"))
+					seed = Long.parseLong(value);
+				else return usage("Invalid option " + option + " " + value);
+			}
+		}
+		catch (NumberFormatException exception)
+		{
+			return usage("Invalid option value: " + exception.getMessage());
+		}
+		if (operations < 1 || keyRange < 1 || chainSize < 1)
+			return usage("Operations, keys & chain size must be positive");
+
+		Random random = new Random(seed);
+		String failure = randomOperations("inserted tree", new WiredBST<Integer>(), new TreeSet<Integer>(), operations, keyRange, random);
+		if (failure == null)
+		{
+			List<Integer> sorted = new ArrayList<Integer>();
+			for (int key = 0; key < keyRange; key += 2)
+				sorted.add(key);
+			failure = randomOperations("tree built from a sorted list", WiredBST.buildFromSorted(sorted), new TreeSet<Integer>(sorted),
+					operations, keyRange, random);
+		}
+		if (failure == null)
+			failure = chainDeletes(chainSize);
+		if (failure != null)
+		{
+			System.out.println("FAILED: " + failure + " (seed " + seed + ")");
+			return EXIT_INVALID;
+		}
+		System.out.printf("OK: statistics valid after %d random operations on 2 trees, and %d deletes from a list like tree%n",
+				operations, chainSize / 2);
+		return EXIT_SUCCESS;
+	}
+
+	/* random inserts (2/3) & deletes (1/3) on the tree & the reference set, validating after each. returns the failure, or null */
+	private static String randomOperations(String name, WiredBST<Integer> tree, TreeSet<Integer> reference,
+			int operations, int keyRange, Random random)
+	{
+		String failure = validate(tree, reference);
+		for (int i = 0; i < operations && failure == null; i++)
+		{
+			int key = random.nextInt(keyRange);
+			if (random.nextInt(3) > 0)
+			{
+				if (reference.add(key))
+					tree.insert(key);
+			}
+			else if (reference.remove(key))
+				tree.release(tree.delete(Integer.valueOf(key)));
+			failure = validate(tree, reference);
+			if (failure != null)
+				failure = name + ", operation " + i + " on key " + key + ": " + failure;
+		}
+		return failure;
+	}
+
+	/* build a list like tree by ascending inserts, and delete keys near it's root, validating after each. returns the failure, or null */
+	private static String chainDeletes(int chainSize)
+	{
+		WiredBST<Integer> tree = new WiredBST<Integer>();
+		TreeSet<Integer> reference = new TreeSet<Integer>();
+		for (int key = 0; key < chainSize; key++)
+		{
+			tree.insert(key);
+			reference.add(key);
+		}
+		for (int key = 0; key < chainSize / 2; key++)
+		{
+			tree.release(tree.delete(Integer.valueOf(key)));
+			reference.remove(key);
+			if (tree.getLevelCount() != reference.size())
+				return "list like tree, delete of key " + key + ": " + tree.getLevelCount() + " levels, instead of " + reference.size();
+			String failure = validate(tree, reference);
+			if (failure != null)
+				return "list like tree, delete of key " + key + ": " + failure;
+		}
+		return null;
+	}
+
+	/* validate the statistics, and the content against the reference set. returns the failure, or null */
+	private static String validate(WiredBST<Integer> tree, TreeSet<Integer> reference)
+	{
+		if (!tree.validateStatistics())
+			return "statistics don't match a full scan of the tree";
+		if (tree.size() != reference.size())
+			return "size " + tree.size() + ", instead of " + reference.size();
+		Iterator<Integer> expected = reference.iterator();
+		for (BSTNode<Integer> node = (tree.getRoot() == null) ? null : tree.getMinimum(tree.getRoot()); node != null; node = tree.getSuccessor(node))
+			if (!node.getData().equals(expected.next()))
+				return "in-order content differs at " + node.getData();
+		return null;
+	}
+
+	/* print usage message, and return the usage exit status */
+	private static int usage(String error)
+	{
+		System.err.println(error);
+		System.err.println("Usage: java check.StatisticsCheck [-operations <n>] [-keys <n>] [-chain <n>] [-seed <n>]");
+		return EXIT_USAGE;
+	}
+}
@@ -0,0 +1,302 @@
+package ioHandler;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * @author Chanan Welt
+ *
+ * BinaryCommandLog - a compact binary format for command files,
+ * with a converter from the text format and a decoder used for fast replay.
+ *
+ * Layout of a binary command log:
+ * -------------------------------------------------------------------------------------------|
+ * magic "WBCL" (4 bytes) | version (1 byte)                                                  |
+ * commands:   { <opcode> [<zigzag varint id>] [<varint name> [<varint length> <UTF-8 bytes>]] } ...|
+ * end of log: <END_OF_LOG op-code>                                                           |
+ * -------------------------------------------------------------------------------------------|
+ * Each command has a fixed width op-code byte (see Command), followed by the id
+ * for commands which take one, and for commands with a name also a reference to the name pool
+ * (0 for no name, i+1 for the i'th distinct name), so repeated names are kept only once.
+ * The first reference to a name is followed by the name itself, which adds it to the pool,
+ * so the log is written in one pass, without holding the commands in memory.
+ * Lines which are invalid in the text file are dropped by the converter.
+ */
+public final class BinaryCommandLog
+{
+	// Constants
+	private static final byte[] MAGIC = {'W', 'B', 'C', 'L'};
+	private static final byte VERSION = 3; // 2: SEARCHNAME, FIRSTK, LASTK & AROUNDMEDIAN op-codes, 3: inline names & end of log
+	private static final byte END_OF_LOG = Command.INVALID; // invalid lines are never written, so this op-code is free
+
+	/** Private constructor - this class has static methods only */
+	private BinaryCommandLog() {}
+
+	/**
+	 * Determine if a file is a binary command log, by it's header.
+	 * @param file - the file to check.
+	 * @return true if the file starts with the binary command log magic.
+	 */
+	public static boolean isCommandLog(File file)
+	{
+		try (DataInputStream stream = new DataInputStream(new FileInputStream(file)))
+		{
+			byte[] header = new byte[MAGIC.length];
+			stream.readFully(header);
+			for (int i = 0; i < MAGIC.length; i++)
+				if (header[i] != MAGIC[i])
+					return false;
+			return true;
+		}
+		catch (IOException ioException)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Convert a text command file into a binary command log.
+	 * @param textFile - the text command file (see InputFileExample.txt), in UTF-8.
+	 * @param logFile - the binary command log to create.
+	 * @return number of commands written (invalid lines are not counted).
+	 * @throws IOException if reading or writing failed.
+	 */
+	public static int convert(File textFile, File logFile) throws IOException
+	{
+		HashMap<String, Integer> namePool = new HashMap<String, Integer>();
+		CommandBatch batch = new CommandBatch(1);
+		int commandCount = 0;
+
+		// encode the commands one by one, adding the distinct names to the pool on the way:
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(textFile), StandardCharsets.UTF_8));
+				OutputStream stream = new BufferedOutputStream(new FileOutputStream(logFile), 1 << 16))
+		{
+			stream.write(MAGIC);
+			stream.write(VERSION);
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				batch.clear();
+				CommandParser.parseLine(line, batch);
+				byte opcode = batch.getOpcode(0);
+				if (opcode == Command.INVALID || opcode == Command.UNKNOWN)
+					continue;
+
+				stream.write(opcode);
+				if (Command.hasKeyArgument(opcode))
+					writeVarInt(stream, (batch.getKey(0) << 1) ^ (batch.getKey(0) >> 31)); // zigzag
+				if (Command.hasNameArgument(opcode))
+				{
+					String name = batch.getName(0);
+					Integer reference = (name == null) ? Integer.valueOf(0) : namePool.get(name);
+					if (reference != null)
+						writeVarInt(stream, reference);
+					else
+					{// first appearance of this name, add it to the pool:
+						reference = namePool.size() + 1;
+						namePool.put(name, reference);
+						byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+						writeVarInt(stream, reference);
+						writeVarInt(stream, bytes.length);
+						stream.write(bytes);
+					}
+				}
+				commandCount++;
+			}
+			stream.write(END_OF_LOG);
+		}
+		return commandCount;
+	}
+
+	/**
+	 * Decoder: reads the commands of a binary command log into batches.
+	 * The file is mapped into memory a window at a time (so logs are not limited to the 2GB of a single mapping),
+	 * and decoded directly from the mapped buffer.
+	 */
+	public static class Reader implements AutoCloseable
+	{
+		// Constants
+		private static final int WINDOW_SIZE = 1 << 26; // bytes of the log which are mapped at a time
+		private static final int MAX_COMMAND_SIZE = 11; // op-code, id & name reference (up to 5 bytes each)
+
+		// Instance variables
+		private final FileChannel channel;
+		private final long fileSize;
+		private MappedByteBuffer buffer;
+		private long windowStart; // file position of the mapped window
+		private final ArrayList<String> names;
+		private boolean ended;
+
+		/** Constructor - open the log, and verify it's header
+		 * @param logFile - the binary command log.
+		 * @throws IOException if the file could not be read or is not a valid command log.
+		 */
+		public Reader(File logFile) throws IOException
+		{
+			channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ);
+			try
+			{
+				fileSize = channel.size();
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, WINDOW_SIZE));
+				for (int i = 0; i < MAGIC.length; i++)
+					if (!buffer.hasRemaining() || buffer.get() != MAGIC[i])
+						throw new IOException("Not a binary command log: " + logFile.getName());
+				if (buffer.get() != VERSION)
+					throw new IOException("Unsupported binary command log version: " + logFile.getName());
+				names = new ArrayList<String>();
+				names.add(null); // reference 0 - no name
+			}
+			catch (IOException | RuntimeException exception)
+			{
+				channel.close();
+				throw exception instanceof IOException ? (IOException) exception
+						: new IOException("Corrupted binary command log: " + logFile.getName(), exception);
+			}
+		}
+
+		/**
+		 * Decode the next commands into the given batch.
+		 * @param batch - an empty batch to fill.
+		 * @param maxCommands - maximal number of commands to decode.
+		 * @return number of commands decoded, 0 at end of log.
+		 * @throws IOException if the log is truncated or corrupted.
+		 */
+		public int read(CommandBatch batch, int maxCommands) throws IOException
+		{
+			int count = 0;
+			try
+			{
+				while (count < maxCommands && !ended)
+				{
+					ensureMapped(MAX_COMMAND_SIZE);
+					byte opcode = buffer.get();
+					if (opcode == END_OF_LOG)
+					{
+						ended = true;
+						break;
+					}
+					if (opcode < Command.INVALID || opcode >= Command.UNKNOWN)
+						throw new IOException("Invalid op-code in binary command log: " + opcode);
+					int key = 0, reference = 0;
+					if (Command.hasKeyArgument(opcode))
+					{
+						int zigzag = readVarInt(buffer);
+						key = (zigzag >>> 1) ^ -(zigzag & 1);
+					}
+					if (Command.hasNameArgument(opcode))
+					{
+						reference = readVarInt(buffer);
+						if (reference == names.size())
+							readName();
+					}
+					batch.add(opcode, key, names.get(reference), null);
+					count++;
+				}
+			}
+			catch (RuntimeException exception)
+			{
+				throw new IOException("Truncated or corrupted binary command log", exception);
+			}
+			return count;
+		}
+
+		/* read the name which follows it's first reference, and add it to the pool */
+		private void readName() throws IOException
+		{
+			// the length is checked against the bytes left, before allocating by it:
+			int length = readVarInt(buffer);
+			if (length < 0 || length > fileSize - getPosition())
+				throw new IOException("Corrupted binary command log: name length " + length + " exceeds the remaining "
+						+ (fileSize - getPosition()) + " bytes");
+			ensureMapped(length);
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			names.add(new String(bytes, StandardCharsets.UTF_8));
+		}
+
+		/* map the window which starts at the current position, if less than the given bytes are left in the current one */
+		private void ensureMapped(int bytes) throws IOException
+		{
+			if (buffer.remaining() >= bytes || windowStart + buffer.limit() == fileSize)
+				return;
+			long position = getPosition();
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(fileSize - position, Math.max(WINDOW_SIZE, bytes)));
+			windowStart = position;
+		}
+
+		/** @return number of bytes of the log which were decoded so far */
+		public long getPosition()
+		{
+			return windowStart + buffer.position();
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			channel.close();
+		}
+	}
+
+	/* utility method: write an unsigned LEB128 variable length integer */
+	private static void writeVarInt(OutputStream stream, int value) throws IOException
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			stream.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		stream.write(value);
+	}
+
+	/* utility method: read an unsigned LEB128 variable length integer */
+	private static int readVarInt(ByteBuffer buffer)
+	{
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7)
+		{
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+		throw new IllegalStateException("Malformed variable length integer");
+	}
+
+	/**
+	 * Command line converter from the text format to the binary format.
+	 * @param args - the text command file & the binary command log to create.
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length != 2)
+		{
+			System.err.println("Usage: java ioHandler.BinaryCommandLog <text command file> <binary command log>");
+			System.exit(2);
+		}
+		try
+		{
+			File textFile = new File(args[0]), logFile = new File(args[1]);
+			int commandCount = convert(textFile, logFile);
+			System.out.printf("Converted %d commands: %d bytes -> %d bytes\n", commandCount, textFile.length(), logFile.length());
+		}
+		catch (IOException ioException)
+		{
+			System.err.println("Error converting file: " + ioException.getMessage());
+			System.exit(1);
+		}
+	}
+} // end of class
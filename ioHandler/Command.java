@@ -0,0 +1,102 @@
+package ioHandler;
+
+/**
+ * @author Chanan Welt
+ *
+ * Command - the op-codes of the input file commands.
+ * Each parsed line is reduced to one of these small constants,
+ * so that batches of commands could be kept in compact primitive arrays
+ * instead of keeping a parsed object for each line.
+ */
+public final class Command
+{
+	// op-codes of commands which could be applied on the tree:
+	public static final byte INVALID = 0; // line could not be parsed (syntax error)
+	public static final byte INSERT = 1;
+	public static final byte DELETE = 2;
+	public static final byte SEARCH = 3;
+	public static final byte MINIMUM = 4;
+	public static final byte MAXIMUM = 5;
+	public static final byte MEDIAN = 6;
+	public static final byte SUCCESSOR = 7;
+	public static final byte PREDECESSOR = 8;
+	public static final byte PREORDER = 9;
+	public static final byte INORDER = 10;
+	public static final byte POSTORDER = 11;
+	public static final byte SEARCHNAME = 12; // search by name, or by a name prefix ending with '*'
+	public static final byte FIRSTK = 13; // ids of the k smallest students
+	public static final byte LASTK = 14; // ids of the k largest students
+	public static final byte AROUNDMEDIAN = 15; // ids of the k students around the median
+	public static final byte UNKNOWN = 16; // line has an unrecognized command name (must be last)
+
+	/** command names, indexed by op-code (the way they are written in an input file) */
+	private static final String[] NAMES = {"INVALID", "INSERT", "DELETE", "SEARCH", "MINIMUM", "MAXIMUM",
+			"MEDIAN", "SUCCESSOR", "PREDECESSOR", "PREORDER", "INORDER", "POSTORDER", "SEARCHNAME",
+			"FIRSTK", "LASTK", "AROUNDMEDIAN", "UNKNOWN"};
+
+	/** Private constructor - this class holds constants only */
+	private Command() {}
+
+	/**
+	 * Get the name of a command.
+	 * @param opcode - the op-code of the command.
+	 * @return the upper case name of the command.
+	 */
+	public static String nameOf(byte opcode)
+	{
+		return NAMES[opcode];
+	}
+
+	/**
+	 * Get the op-code of a command by it's name (case in-sensitive).
+	 * @param line - the text containing the command name.
+	 * @param start - index of first character of the name.
+	 * @param end - index after last character of the name.
+	 * @return the op-code of the command, or UNKNOWN if there is no such command.
+	 */
+	public static byte opcodeOf(String line, int start, int end)
+	{
+		int length = end - start;
+		for (byte opcode = INSERT; opcode < UNKNOWN; opcode++)
+			if (NAMES[opcode].length() == length && line.regionMatches(true, start, NAMES[opcode], 0, length))
+				return opcode;
+		return UNKNOWN;
+	}
+
+	/**
+	 * Format a command back to the text format of an input file line.
+	 * @param opcode - the op-code of the command.
+	 * @param key - the numeric argument, if the command takes one.
+	 * @param name - the name argument, if any.
+	 * @return the command as a text line.
+	 */
+	public static String toText(byte opcode, int key, String name)
+	{
+		if (opcode == SEARCHNAME)
+			return NAMES[opcode] + " " + name;
+		if (!hasKeyArgument(opcode))
+			return NAMES[opcode];
+		if (name == null)
+			return NAMES[opcode] + " " + key;
+		return NAMES[opcode] + " " + key + " " + name;
+	}
+
+	/** Determine if a command expects a mandatory numeric argument (an id, or a count for the k queries) */
+	public static boolean hasKeyArgument(byte opcode)
+	{
+		return opcode == INSERT || opcode == DELETE || opcode == SEARCH
+				|| opcode == SUCCESSOR || opcode == PREDECESSOR || isCountQuery(opcode);
+	}
+
+	/** Determine if a command is one of the k queries, whose numeric argument is a count */
+	public static boolean isCountQuery(byte opcode)
+	{
+		return opcode == FIRSTK || opcode == LASTK || opcode == AROUNDMEDIAN;
+	}
+
+	/** Determine if a command takes a name argument (optional for insert, mandatory for search by name) */
+	public static boolean hasNameArgument(byte opcode)
+	{
+		return opcode == INSERT || opcode == SEARCHNAME;
+	}
+} // end of class
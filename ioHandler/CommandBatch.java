@@ -0,0 +1,77 @@
+package ioHandler;
+
+import java.util.Arrays;
+
+/**
+ * @author Chanan Welt
+ *
+ * CommandBatch - a compact batch of parsed commands.
+ * The commands are kept in parallel primitive arrays (op-code, key, name and the original line),
+ * so a batch could be parsed by one thread and applied on the tree later by another thread.
+ */
+public class CommandBatch
+{
+	// Instance variables
+	private byte[] opcodes;
+	private int[] keys;
+	private String[] names; // student name, or error message for INVALID commands
+	private String[] lines; // original input line (kept for echo on the output)
+	private int size;
+	private long byteLength; // size of the input the batch was parsed from
+
+	/** Constructor
+	 * @param capacity - initial number of commands the batch could hold.
+	 */
+	public CommandBatch(int capacity)
+	{
+		opcodes = new byte[capacity];
+		keys = new int[capacity];
+		names = new String[capacity];
+		lines = new String[capacity];
+		size = 0;
+	}
+
+	/**
+	 * Append a command to the end of the batch.
+	 * @param opcode - the command op-code (see Command).
+	 * @param key - the numeric argument (student id), if any.
+	 * @param name - the name argument, or error message for an INVALID command.
+	 * @param line - the original input line.
+	 */
+	public void add(byte opcode, int key, String name, String line)
+	{
+		if (size == opcodes.length)
+		{// grow all arrays by factor 2:
+			int newCapacity = Math.max(16, size * 2);
+			opcodes = Arrays.copyOf(opcodes, newCapacity);
+			keys = Arrays.copyOf(keys, newCapacity);
+			names = Arrays.copyOf(names, newCapacity);
+			lines = Arrays.copyOf(lines, newCapacity);
+		}
+		opcodes[size] = opcode;
+		keys[size] = key;
+		names[size] = name;
+		lines[size] = line;
+		size++;
+	}
+
+	/** Empty the batch so it could be reused */
+	public void clear()
+	{
+		Arrays.fill(names, 0, size, null);
+		Arrays.fill(lines, 0, size, null);
+		size = 0;
+		byteLength = 0;
+	}
+
+	// input size getter & setter:
+	public long getByteLength() {return byteLength;}
+	public void setByteLength(long byteLength) {this.byteLength = byteLength;}
+	
+	// basic getters:
+	public int size() {return size;}
+	public byte getOpcode(int index) {return opcodes[index];}
+	public int getKey(int index) {return keys[index];}
+	public String getName(int index) {return names[index];}
+	public String getLine(int index) {return lines[index];}
+} // end of class
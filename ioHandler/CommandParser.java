@@ -0,0 +1,155 @@
+package ioHandler;
+
+import java.nio.charset.Charset;
+
+/**
+ * @author Chanan Welt
+ *
+ * CommandParser - a light weight tokenizer for the input file commands.
+ * It scans each line only once, without regular expressions or a Scanner per line,
+ * and appends the parsed command to a CommandBatch.
+ * The parser keeps no state, therefore it could be used by several threads at once.
+ */
+public final class CommandParser
+{
+	/** Private constructor - this class has static methods only */
+	private CommandParser() {}
+
+	/**
+	 * Parse a single line and append the command to the batch.
+	 * @param line - the input line.
+	 * @param batch - the batch to append the parsed command to.
+	 */
+	public static void parseLine(String line, CommandBatch batch)
+	{
+		int length = line.length();
+		int start = skipWhitespace(line, 0);
+		if (start == length)
+		{
+			batch.add(Command.INVALID, 0, "empty line", line);
+			return;
+		}
+
+		// command name:
+		int end = skipToken(line, start);
+		byte opcode = Command.opcodeOf(line, start, end);
+		if (opcode == Command.SEARCHNAME)
+		{// mandatory name (or name prefix) argument:
+			start = skipWhitespace(line, end);
+			if (start == length)
+				batch.add(Command.INVALID, 0, "missing student name", line);
+			else batch.add(opcode, 0, line.substring(start, skipToken(line, start)), line);
+			return;
+		}
+		if (opcode == Command.UNKNOWN || !Command.hasKeyArgument(opcode))
+		{
+			batch.add(opcode, 0, null, line);
+			return;
+		}
+
+		// mandatory numeric id argument:
+		start = skipWhitespace(line, end);
+		if (start == length)
+		{
+			batch.add(Command.INVALID, 0, Command.isCountQuery(opcode) ? "missing count" : "missing student id", line);
+			return;
+		}
+		end = skipToken(line, start);
+		int key;
+		try
+		{
+			key = parseInt(line, start, end);
+		}
+		catch (NumberFormatException exception)
+		{
+			batch.add(Command.INVALID, 0, exception.getMessage(), line);
+			return;
+		}
+
+		// optional name argument (for insert only):
+		String name = null;
+		if (opcode == Command.INSERT)
+		{
+			start = skipWhitespace(line, end);
+			if (start < length)
+				name = line.substring(start, skipToken(line, start));
+		}
+		batch.add(opcode, key, name, line);
+	}
+
+	/**
+	 * Parse a chunk of raw file bytes which contains whole lines only.
+	 * @param data - the raw bytes.
+	 * @param from - index of first byte of the chunk.
+	 * @param to - index after the last byte of the chunk.
+	 * @param charset - the encoding of the input file.
+	 * @return a batch with a command for each line of the chunk.
+	 */
+	public static CommandBatch parseChunk(byte[] data, int from, int to, Charset charset)
+	{
+		CommandBatch batch = new CommandBatch(Math.max(16, (to - from) / 16));
+		int lineStart = from;
+		while (lineStart < to)
+		{
+			// find end of current line:
+			int lineEnd = lineStart;
+			while (lineEnd < to && data[lineEnd] != '\n')
+				lineEnd++;
+
+			// drop carriage return of windows line separators:
+			int textEnd = lineEnd;
+			if (textEnd > lineStart && data[textEnd - 1] == '\r')
+				textEnd--;
+
+			parseLine(new String(data, lineStart, textEnd - lineStart, charset), batch);
+			lineStart = lineEnd + 1;
+		}
+		batch.setByteLength(to - from);
+		return batch;
+	}
+
+	/* utility method: index of first non whitespace character from given index */
+	private static int skipWhitespace(String line, int index)
+	{
+		while (index < line.length() && Character.isWhitespace(line.charAt(index)))
+			index++;
+		return index;
+	}
+
+	/* utility method: index after the last character of the token starting at given index */
+	private static int skipToken(String line, int index)
+	{
+		while (index < line.length() && !Character.isWhitespace(line.charAt(index)))
+			index++;
+		return index;
+	}
+
+	/* utility method: parse a decimal integer in place, without creating a sub string */
+	private static int parseInt(String line, int start, int end)
+	{
+		int index = start;
+		boolean negative = false;
+		if (line.charAt(index) == '-' || line.charAt(index) == '+')
+		{
+			negative = line.charAt(index) == '-';
+			index++;
+		}
+		if (index == end)
+			throw new NumberFormatException("For input string: \"" + line.substring(start, end) + "\"");
+
+		// accumulate negatively, so Integer.MIN_VALUE could be parsed as well:
+		long result = 0;
+		for (; index < end; index++)
+		{
+			int digit = Character.digit(line.charAt(index), 10);
+			if (digit < 0)
+				throw new NumberFormatException("For input string: \"" + line.substring(start, end) + "\"");
+			result = result * 10 - digit;
+			if (result < Integer.MIN_VALUE)
+				throw new NumberFormatException("For input string: \"" + line.substring(start, end) + "\"");
+		}
+		if (!negative && result == Integer.MIN_VALUE)
+			throw new NumberFormatException("For input string: \"" + line.substring(start, end) + "\"");
+		return (int) (negative ? result : -result);
+	}
+} // end of class
@@ -1,14 +1,27 @@
 package ioHandler;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 
-import java.util.NoSuchElementException;
-import java.util.Scanner;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.management.openmbean.KeyAlreadyExistsException;
 
 import binaryTree.BSTNode;
+import student.NameIndex;
 import student.Student;
 import wiredBinarySearchTree.WiredBST;
 
@@ -18,151 +31,610 @@ import wiredBinarySearchTree.WiredBST;
  * I/O Handler: this class is responsible for enabling input from file,
  * opening it, parsing it, dealing with i/o exceptions and invalid syntax, 
  * interacting with the data model (tree), and eventually closing the file; 
+ * 
+ * Files could be processed either sequentially (parse a line, apply it, and so on),
+ * or in a pipelined mode, in which several worker threads parse chunks of the file in parallel,
+ * while a single thread applies the parsed commands on the tree in the original file order. 
  */
 public class IOHandler
 {
+	// Constants
+	private static final int BATCH_SIZE = 1024; // commands parsed before applying them (sequential mode)
+	private static final int CHUNK_SIZE = 1 << 20; // bytes in each chunk parsed by a worker (pipelined mode)
+	private static final int MAX_NAME_RESULTS = 100; // students listed for a search by name prefix
+	
 	// Instance variables 
-	private Scanner input;
+	private BufferedReader input;
 	private WiredBST<Student> tree;
+	private MutationJournal journal; // optional write-ahead journal of the mutations
+	private Exception journalFailure; // set when a mutation could not be journaled, which stops the processing
+	private OutputSink output; // where results are reported to
+	private ImportMonitor monitor; // optional progress listener
+	private Object treeLock; // held while commands mutate the tree
+	private long bytesProcessed; // progress of the current file
+	private NameIndex nameIndex; // secondary index by name, built on the first search by name
+	private int[] countQueryIds = new int[16]; // reused result buffer of the k queries
+	
+	/** Constructor - results are reported in full to the standard output */
+	public IOHandler()
+	{
+		output = new OutputSink(OutputSink.Verbosity.FULL);
+		treeLock = new Object();
+	}
+	
+	/**
+	 * Set a write-ahead journal, to which all inserts & deletes would be logged.
+	 * @param journal - the journal, or null for no journaling.
+	 */
+	public void setJournal(MutationJournal journal)
+	{
+		this.journal = journal;
+		journalFailure = null;
+	}
+	
+	/**
+	 * Set the output sink, to which the commands results & the run summary are reported.
+	 * @param output - the output sink.
+	 */
+	public void setOutputSink(OutputSink output)
+	{
+		this.output = output;
+	}
+	
+	/** @return the output sink, which holds the counters of the last run */
+	public OutputSink getOutputSink() {return output;}
+	
+	/**
+	 * Get the name index of a tree. The index is built on first use, 
+	 * and from then on it's kept up to date by the tree, until another tree is indexed.
+	 * @param tree - the tree to search by name.
+	 * @return the name index of the tree.
+	 */
+	public NameIndex getNameIndex(WiredBST<Student> tree)
+	{
+		if (nameIndex == null || nameIndex.getTree() != tree)
+		{
+			if (nameIndex != null)
+				nameIndex.detach();
+			nameIndex = new NameIndex(tree);
+		}
+		return nameIndex;
+	}
+	
+	/**
+	 * Set a monitor, which is notified after each applied batch and could cancel the processing.
+	 * @param monitor - the monitor, or null for none.
+	 */
+	public void setImportMonitor(ImportMonitor monitor)
+	{
+		this.monitor = monitor;
+	}
+	
+	/**
+	 * Set the lock which is held while commands are applied on the tree.
+	 * The lock is released between batches, so another thread (i.e. the GUI painting the tree)
+	 * could safely read the tree while a file is being processed.  
+	 * @param treeLock - the lock object shared with the readers of the tree.
+	 */
+	public void setTreeLock(Object treeLock)
+	{
+		this.treeLock = treeLock;
+	}
 	
 	/**
 	 * Process input file method
 	 * @param tree - the data model 
 	 * @param inputFile - the input file to process 
+	 * @return true if the whole file was read, false on an I/O error
 	 */
-	public void processInputFile(WiredBST<Student> tree, File inputFile)
+	public boolean processInputFile(WiredBST<Student> tree, File inputFile)
 	{
 		this.tree = tree;
-		openFile(inputFile);
-		readRecords();
+		if (BinaryCommandLog.isCommandLog(inputFile))
+			return replayCommandLog(tree, inputFile);
+		if (openFile(inputFile) == null)
+			return false;
+		output.startRun();
+		bytesProcessed = 0;
+		boolean completed = readRecords();
 		closeFile();
+		syncJournal();
+		output.printSummary(inputFile.getName());
+		return completed;
+	}
+	
+	/**
+	 * Process input file method - pipelined version.
+	 * A reader thread splits the file into chunks at line boundaries, 
+	 * a pool of worker threads parse the chunks in parallel into command batches, 
+	 * and the calling thread applies the batches on the tree in the original file order.  
+	 * @param tree - the data model 
+	 * @param inputFile - the input file to process 
+	 * @param workerCount - number of parsing threads
+	 * @return true if the whole file was read, false on an I/O error
+	 */
+	public boolean processInputFilePipelined(WiredBST<Student> tree, File inputFile, int workerCount)
+	{
+		this.tree = tree;
+		ExecutorService parsers = Executors.newFixedThreadPool(workerCount);
+		BlockingQueue<Future<CommandBatch>> pending = new ArrayBlockingQueue<>(2 * workerCount);
+		Thread reader = new Thread(() -> readChunks(inputFile, parsers, pending), "input-file-reader");
+		reader.setDaemon(true);
+		reader.start();
+		output.startRun();
+		bytesProcessed = 0;
+		
+		// apply the parsed batches by their order in the file:
+		int lineCounter = 0;
+		boolean completed = false;
+		try
+		{
+			CommandBatch batch = pending.take().get();
+			while (batch != null) // null marks end of file
+			{
+				bytesProcessed += batch.getByteLength();
+				if (!applyBatch(batch, lineCounter))
+					break; // cancelled
+				lineCounter += batch.size();
+				batch = pending.take().get();
+			}
+			completed = (batch == null);
+		}
+		catch (ExecutionException exception)
+		{
+			System.err.println("Error reading file " + inputFile.getName() + ": " + exception.getCause().getMessage());
+		}
+		catch (InterruptedException exception)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			reader.interrupt();
+			parsers.shutdownNow();
+			syncJournal();
+			output.printSummary(inputFile.getName());
+		}
+		return completed;
+	}
+	
+	/**
+	 * Replay a binary command log (see BinaryCommandLog) on the tree.
+	 * The log is decoded directly from memory into batches, without any text parsing.  
+	 * @param tree - the data model 
+	 * @param logFile - the binary command log to replay 
+	 * @return true if the whole log was read, false on an I/O error
+	 */
+	public boolean replayCommandLog(WiredBST<Student> tree, File logFile)
+	{
+		this.tree = tree;
+		CommandBatch batch = new CommandBatch(BATCH_SIZE);
+		int commandCounter = 0;
+		boolean completed = false;
+		output.startRun();
+		try (BinaryCommandLog.Reader reader = new BinaryCommandLog.Reader(logFile))
+		{
+			completed = true;
+			while (reader.read(batch, BATCH_SIZE) > 0)
+			{
+				bytesProcessed = reader.getPosition();
+				if (!applyBatch(batch, commandCounter))
+				{
+					completed = false; // cancelled
+					break;
+				}
+				commandCounter += batch.size();
+				batch.clear();
+			}
+		}
+		catch (IOException ioException)
+		{
+			System.err.println("Error reading command log " + logFile.getName() + ": " + ioException.getMessage());
+		}
+		syncJournal();
+		output.printSummary(logFile.getName());
+		return completed;
+	}
+	
+	/**
+	 * Default number of parsing threads for the pipelined mode:
+	 * all available processors but one, which is left for the applying thread.
+	 */
+	public static int defaultWorkerCount()
+	{
+		return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
 	}
 
 	/* utillity method for opening a file */
-	private Scanner openFile(File inputFile)
+	private BufferedReader openFile(File inputFile)
 	{
 		try 
 		{
-			return input = new Scanner(inputFile);
+			return input = new BufferedReader(new FileReader(inputFile));
 		} 
 		catch (IOException ioException)
 		{
-			System.err.println("Error opening file " + inputFile.getName() + ioException.getMessage());
+			System.err.println("Error opening file " + inputFile.getName() + ": " + ioException.getMessage());
 			return null;
 		} 
 	}
 
-	// read record from file
-	public void readRecords()
+	// read record from file, return false if reading failed in the middle
+	public boolean readRecords()
 	{
-		Scanner lineParser;
+		CommandBatch batch = new CommandBatch(BATCH_SIZE);
 		int lineCounter = 0;
-		String command;
-		int studentID, key;
-		String studentName;
-		BSTNode<Student> node;
+		String currentLine;
 		
-		while (input.hasNext()) // while there is more to read
+		try
 		{
-			// get next line and print it on standard output:
-			lineCounter++;				
-			String currentLine = input.nextLine();                   
-			System.out.printf("Line %d input: %s\nLine %d output:", lineCounter, currentLine, lineCounter);
-
-			// set a parser for current line:
-			lineParser = new Scanner(currentLine);
+			while ((currentLine = input.readLine()) != null) // while there is more to read
+			{
+				// parse current line, and apply the batch once it's full: 
+				CommandParser.parseLine(currentLine, batch);
+				bytesProcessed += currentLine.length() + 1;
+				if (batch.size() == BATCH_SIZE)
+				{
+					if (!applyBatch(batch, lineCounter))
+						return false; // cancelled
+					lineCounter += batch.size();
+					batch.clear();
+				}
+			}
+		}
+		catch (IOException ioException)
+		{
+			System.err.println("Error reading file: " + ioException.getMessage());
+			applyBatch(batch, lineCounter);
+			return false;
+		}
+		
+		// apply remaining commands: 
+		return applyBatch(batch, lineCounter);
+	} // end method readRecords
+	
+	/*
+	 * Reader thread of the pipelined mode: read the file in chunks which end at a line boundary,
+	 * submit each chunk for parsing, and queue the pending results by their order in the file.  
+	 */
+	private void readChunks(File inputFile, ExecutorService parsers, BlockingQueue<Future<CommandBatch>> pending)
+	{
+		Charset charset = Charset.defaultCharset();
+		CompletableFuture<CommandBatch> endOfFile = new CompletableFuture<>(); // a null batch, or the failure
+		boolean interrupted = false;
+		try (InputStream stream = new FileInputStream(inputFile))
+		{
+			byte[] chunk = new byte[CHUNK_SIZE];
+			int length = 0;
+			int bytesRead;
+			while ((bytesRead = stream.read(chunk, length, chunk.length - length)) != -1)
+			{
+				length += bytesRead;
+				if (length < chunk.length)
+					continue;
+				
+				// cut the chunk after it's last line break: 
+				int end = length;
+				while (end > 0 && chunk[end - 1] != '\n')
+					end--;
+				if (end == 0) 
+				{// a single line is longer than the chunk, enlarge it:
+					chunk = Arrays.copyOf(chunk, 2 * chunk.length);
+					continue;
+				}
+				final byte[] data = chunk;
+				final int dataEnd = end;
+				pending.put(parsers.submit(() -> CommandParser.parseChunk(data, 0, dataEnd, charset)));
+				
+				// move the incomplete last line to the beginning of the next chunk:
+				chunk = new byte[Math.max(CHUNK_SIZE, 2 * (length - end))];
+				System.arraycopy(data, end, chunk, 0, length - end);
+				length = length - end;
+			}
 			
-			// parse current line and branch to relevant operation:
-			try 
+			// submit the last chunk, which might not end with a line break:
+			if (length > 0)
+			{
+				final byte[] data = chunk;
+				final int dataEnd = length;
+				pending.put(parsers.submit(() -> CommandParser.parseChunk(data, 0, dataEnd, charset)));
+			}
+			endOfFile.complete(null);
+		}
+		catch (InterruptedException exception)
+		{
+			interrupted = true; // the applying thread has stopped, nothing more to do
+		}
+		catch (Exception exception)
+		{// an I/O error, or a chunk rejected by the parsers (e.g, after a cancel):
+			endOfFile.completeExceptionally(exception);
+		}
+		finally
+		{
+			// always end the queue, so the applying thread would not wait for it forever:
+			if (!interrupted)
 			{
-				command = lineParser.next().toUpperCase();
-				switch (command)
+				if (!endOfFile.isDone())
+					endOfFile.completeExceptionally(new IllegalStateException("The input file reader failed"));
+				try
 				{
-					case "INSERT":
+					pending.put(endOfFile);
+				}
+				catch (InterruptedException exception)
+				{
+					// the applying thread has stopped meanwhile
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Apply a batch of parsed commands on the tree.
+	 * Commands are applied in slices, holding the tree lock during each slice only,
+	 * and the monitor (if any) is notified after each slice. 
+	 * @param batch - the parsed commands.
+	 * @param lineOffset - number of lines in the file which precede the batch.
+	 * @return false if the processing was cancelled by the monitor, or stopped by a journal failure.
+	 */
+	private boolean applyBatch(CommandBatch batch, int lineOffset)
+	{
+		for (int start = 0; start < batch.size(); start += BATCH_SIZE)
+		{
+			int end = Math.min(batch.size(), start + BATCH_SIZE);
+			synchronized (treeLock)
+			{
+				for (int i = start; i < end && journalFailure == null; i++)
+					executeCommand(batch, i, lineOffset + i + 1);
+			}
+			if (journalFailure != null)
+				return false; // the tree is ahead of the journal, don't apply more changes
+			if (monitor != null)
+			{
+				monitor.progress(lineOffset + end, bytesProcessed);
+				if (monitor.isCancelRequested())
+					return false;
+			}
+		}
+		
+		// fold the journal into a new snapshot once it grew large enough: 
+		if (journal != null)
+		{
+			try
+			{
+				journal.compactIfNeeded(tree);
+			}
+			catch (IOException ioException)
+			{
+				System.err.println("Error compacting journal: " + ioException.getMessage());
+			}
+		}
+		return true;
+	}
+	
+	/* commit the journal records of the processed file */
+	private void syncJournal()
+	{
+		if (journal == null)
+			return;
+		try
+		{
+			journal.sync();
+		}
+		catch (IOException ioException)
+		{
+			System.err.println("Error writing journal: " + ioException.getMessage());
+		}
+	}
+	
+	/*
+	 * Execute a single parsed command, interacting with the tree,
+	 * and report the input line & the result to the output sink. 
+	 * Result texts are formatted only when the sink would print them. 
+	 */
+	private void executeCommand(CommandBatch batch, int index, int lineNumber)
+	{
+		byte command = batch.getOpcode(index);
+		int key = batch.getKey(index);
+		BSTNode<Student> node;
+		
+		// echo current line (commands replayed from a binary log have no text line):
+		String line = batch.getLine(index);
+		if (line == null && output.isEchoEnabled())
+			line = Command.toText(command, key, batch.getName(index));
+		output.command(lineNumber, command, line);
+		
+		// branch to relevant operation:
+		try 
+		{
+			switch (command)
+			{
+				case Command.INSERT:
+				{
+					node = tree.insert(new Student(key, batch.getName(index)));
+					if (node != null && journal != null)
 					{
-						studentID = lineParser.nextInt();
-						if (lineParser.hasNext())
-							studentName = lineParser.next();
-						else studentName = null;					
-						node = tree.insert(new Student(studentID, studentName));
-						if (node != null)
-							System.out.printf("Student <%s> inserted successfully\n", (node.getData()));
-						else System.err.println("Error inserting " + studentID);
-						break;
+						try
+						{
+							journal.logInsert(node.getData());
+						}
+						catch (IOException | RuntimeException exception)
+						{
+							journalFailed(lineNumber, exception);
+						}
 					}
-					case "DELETE":
+					if (node == null)
+						output.error(lineNumber, "Error inserting " + key);
+					else if (output.isResultEnabled())
+						output.result(lineNumber, String.format("Student <%s> inserted successfully", (node.getData())));
+					break;
+				}
+				case Command.DELETE:
+				{
+					node = tree.deleteByKey(key, Student::getId);
+					if (node != null && journal != null)
 					{
-						key = lineParser.nextInt();	
-						node = tree.delete(tree.search(tree.getRoot(), new Student(key, null)));
-						if (node != null)
-							System.out.printf("Student <%s> deleted successfully\n", (node.getData()));
-						else System.out.println("Deletion falied:: " + key + " does exist");
-						break;
+						try
+						{
+							journal.logDelete(key);
+						}
+						catch (IOException | RuntimeException exception)
+						{
+							journalFailed(lineNumber, exception);
+						}
 					}
-					
-					case "SEARCH":
-					{
-						key = lineParser.nextInt();	
-						node = tree.search(tree.getRoot(), new Student(key, null));
-						if (node != null)
-							System.out.printf("Search succedded: <%s> \n", node);
-						else System.out.println("Search failed: " + key + " does not exist in tree");
+					if (node == null)
+						output.error(lineNumber, "Deletion falied:: " + key + " does exist");
+					else if (output.isResultEnabled())
+						output.result(lineNumber, String.format("Student <%s> deleted successfully", (node.getData())));
+					tree.release(node); // done with the deleted node, let the tree recycle it
+					break;
+				}
+				
+				case Command.SEARCH:
+				{
+					node = tree.searchByKey(key, Student::getId);
+					if (!output.isResultEnabled())
 						break;
-					}
-					
-					case "MAXIMUM": case "MINIMUM": case "MEDIAN":
-					{
-						if (command == "MAXIMUM")
-							node = tree.getMaximum(tree.getRoot());
-						else if (command == "MINIMUM")
-							node = tree.getMinimum(tree.getRoot());
-						else // "MEDIAN"
-							node = tree.getMedian();
-						if (node != null)
-							System.out.printf("%s is: <%s>\n", command, node);
-						else System.out.printf("Tree is empty, %s is NIL\n", command);
+					if (node != null)
+						output.result(lineNumber, String.format("Search succedded: <%s> ", node));
+					else output.result(lineNumber, "Search failed: " + key + " does not exist in tree");
+					break;
+				}
+				
+				case Command.SEARCHNAME:
+				{
+					// a trailing '*' searches by a name prefix:
+					String name = batch.getName(index);
+					boolean prefix = name.endsWith("*");
+					List<BSTNode<Student>> nodes = prefix 
+							? getNameIndex(tree).searchPrefix(name.substring(0, name.length() - 1), MAX_NAME_RESULTS + 1)
+							: getNameIndex(tree).search(name);
+					if (!output.isResultEnabled())
 						break;
-					}
-					
-					case "SUCCESSOR": case "PREDECESSOR":
-					{
-						key = lineParser.nextInt();	
-						if (command.equals("SUCCESSOR"))
-							node = tree.getSuccessor(tree.getRoot());
-						else node = tree.getPredecessor(tree.getRoot());
-						if (node != null)
-							System.out.printf("%s is: <%s>\n", command, node);
-						else System.out.printf("%s of %s is NIL\n", command, key);
+					if (nodes.isEmpty())
+						output.result(lineNumber, "Search by name failed: no student named " + name);
+					else output.result(lineNumber, formatNameResults(name, nodes));
+					break;
+				}
+				
+				case Command.MAXIMUM: case Command.MINIMUM: case Command.MEDIAN:
+				{
+					if (command == Command.MAXIMUM)
+						node = tree.getMaximum(tree.getRoot());
+					else if (command == Command.MINIMUM)
+						node = tree.getMinimum(tree.getRoot());
+					else // MEDIAN
+						node = tree.getMedian();
+					if (!output.isResultEnabled())
 						break;
-					}
-					
-					case "PREORDER": case "POSTORDER": case "INORDER":
-					{
-						if (command.equals("PREORDER"))
-							tree.preorderTreeWalk(tree.getRoot());
-						else if(command.equals("POSTORDER"))
-							tree.postorderTreeWalk(tree.getRoot());
-						else tree.inorderTreeWalk(tree.getRoot());
+					if (node != null)
+						output.result(lineNumber, String.format("%s is: <%s>", Command.nameOf(command), node));
+					else output.result(lineNumber, String.format("Tree is empty, %s is NIL", Command.nameOf(command)));
+					break;
+				}
+				
+				case Command.SUCCESSOR: case Command.PREDECESSOR:
+				{
+					// one descent for the key, which doesn't have to be in the tree:
+					if (command == Command.SUCCESSOR)
+						node = tree.higherByKey(key, Student::getId);
+					else node = tree.lowerByKey(key, Student::getId);
+					if (!output.isResultEnabled())
 						break;
-					}
-					default: 
+					if (node != null)
+						output.result(lineNumber, String.format("%s of %s is: <%s>", Command.nameOf(command), key, node));
+					else output.result(lineNumber, String.format("%s of %s is NIL", Command.nameOf(command), key));
+					break;
+				}
+				
+				case Command.FIRSTK: case Command.LASTK: case Command.AROUNDMEDIAN:
+				{
+					if (key < 0)
 					{
-						System.out.printf("Invalid syntax format for this line\n");
+						output.error(lineNumber, "This line is invalid: negative count " + key + ". operation canceled");
+						break;
 					}
+					// the buffer grows to the tree size at most, and is reused by the next queries:
+					int k = Math.min(key, tree.size());
+					if (k > countQueryIds.length)
+						countQueryIds = new int[Math.max(k, countQueryIds.length * 2)];
+					int count;
+					if (command == Command.FIRSTK)
+						count = tree.firstK(k, countQueryIds, Student::getId);
+					else if (command == Command.LASTK)
+						count = tree.lastK(k, countQueryIds, Student::getId);
+					else // AROUNDMEDIAN
+						count = tree.aroundMedian(k, countQueryIds, Student::getId);
+					if (output.isResultEnabled())
+						output.result(lineNumber, formatIds(command, key, countQueryIds, count));
+					break;
+				}
+				
+				case Command.PREORDER: case Command.POSTORDER: case Command.INORDER:
+				{
+					// tree walks are only worth their O(n) cost if their result is printed:
+					if (!output.isResultEnabled())
+						break;
+					if (command == Command.PREORDER)
+						output.result(lineNumber, tree.preorderTreeWalk(tree.getRoot()));
+					else if(command == Command.POSTORDER)
+						output.result(lineNumber, tree.postorderTreeWalk(tree.getRoot()));
+					else output.result(lineNumber, tree.inorderTreeWalk(tree.getRoot()));
+					break;
+				}
+				
+				case Command.INVALID:
+				{
+					output.error(lineNumber, "This line is invalid: " + batch.getName(index) + ". operation canceled");
+					break;
+				}
+				default: 
+				{
+					output.error(lineNumber, "Invalid syntax format for this line");
 				}
 			}
-			
-			catch (NumberFormatException | KeyAlreadyExistsException | NoSuchElementException exception)
-			{
-				System.out.printf("This line is invalid: %s. operation canceled\n", exception.getMessage());
-			} 
-			
-			catch (Exception exception)
-			{
-				System.out.printf("This line is invalid: %s. operation canceled\n", exception.getMessage());
-			} 
 		}
-	} // end method readRecords
+		
+		catch (KeyAlreadyExistsException exception)
+		{
+			output.error(lineNumber, "This line is invalid: " + exception.getMessage() + ". operation canceled");
+		} 
+		
+		catch (Exception exception)
+		{
+			output.error(lineNumber, "This line is invalid: " + exception.getMessage() + ". operation canceled");
+		} 
+	}
+
+	/* a mutation was applied on the tree but not journaled: report it, and stop applying further commands */
+	private void journalFailed(int lineNumber, Exception exception)
+	{
+		journalFailure = exception;
+		System.err.println("Error writing journal at line " + lineNumber + ": " + exception.getMessage()
+				+ ". the change is in the tree but not in the journal, processing stopped");
+	}
+
+	/* list the students found by name, up to the maximal number of results */
+	private static String formatNameResults(String name, List<BSTNode<Student>> nodes)
+	{
+		StringBuilder text = new StringBuilder("Search by name succedded: ").append(name).append(" ->");
+		for (int i = 0; i < nodes.size() && i < MAX_NAME_RESULTS; i++)
+			text.append(" <").append(nodes.get(i).getData()).append(' ').append(nodes.get(i).getData().getName()).append('>');
+		if (nodes.size() > MAX_NAME_RESULTS)
+			text.append(" ... (first ").append(MAX_NAME_RESULTS).append(" shown)");
+		return text.toString();
+	}
+
+	/* list the ids found by a k query */
+	private static String formatIds(byte command, int k, int[] ids, int count)
+	{
+		if (count == 0 && k > 0)
+			return String.format("Tree is empty, %s %d is NIL", Command.nameOf(command), k);
+		StringBuilder text = new StringBuilder(Command.nameOf(command)).append(' ').append(k).append(" is:");
+		for (int i = 0; i < count; i++)
+			text.append(' ').append(ids[i]);
+		return text.toString();
+	}
 
 	/* utility method for closing the input file */
 	private void closeFile()
@@ -177,4 +649,4 @@ public class IOHandler
 			System.err.println("Error closing file.");
 		} 
 	} 
-} // end of class 
+} // end of class
@@ -0,0 +1,13 @@
+package ioHandler;
+
+/**
+ * @author Chanan Welt
+ * 
+ * ImportMonitor - receives progress reports while IOHandler processes a file,
+ * and lets the caller cancel the processing between batches of commands.
+ */
+public interface ImportMonitor
+{
+	public void progress(long commandsProcessed, long bytesProcessed);
+	public boolean isCancelRequested();
+}
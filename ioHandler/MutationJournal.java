@@ -0,0 +1,286 @@
+package ioHandler;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import binaryTree.BSTNode;
+import student.Student;
+import student.StudentCodec;
+import wiredBinarySearchTree.WiredBST;
+
+/**
+ * @author Chanan Welt
+ *
+ * MutationJournal - an append-only write-ahead journal of the tree mutations (inserts & deletes).
+ * Records are buffered in memory and written & forced to disk in group commits,
+ * so the cost of fsync is shared by a whole group of mutations.
+ * On start-up, the tree is recovered from the last snapshot plus the journal records written after it,
+ * and a torn record at the end of the journal (a crash in the middle of a write) is truncated.
+ * Compaction folds the journal into a new snapshot and empties the journal.
+ *
+ * Layout of each record: <int payload length> <int CRC32 of payload> <payload>,
+ * where the payload is the op-code (INSERT or DELETE), followed by the student (insert) or the id (delete).
+ */
+public class MutationJournal implements AutoCloseable
+{
+	// Constants
+	private static final int HEADER_SIZE = 8; // payload length & checksum
+	private static final int MAX_PAYLOAD_SIZE = 1 << 18;
+
+	// Instance variables
+	private final File journalFile;
+	private final File snapshotFile;
+	private final int groupCommitSize;
+	private final int compactionThreshold;
+	private final StudentCodec codec;
+	private final CRC32 checksum;
+	private final RecordBuffer payloadBuffer;
+	private final DataOutputStream payloadOutput;
+	private final RecordBuffer pendingBuffer;
+	private final DataOutputStream pendingOutput;
+	private FileChannel channel;
+	private int pendingRecords;
+	private int recordsSinceCompaction;
+
+	/**
+	 * Constructor
+	 * @param journalFile - the journal file (created if it does not exist).
+	 * @param snapshotFile - the snapshot file which the journal is folded into on compaction.
+	 * @param groupCommitSize - number of records which are written & forced to disk together.
+	 * @param compactionThreshold - number of journal records after which compactIfNeeded compacts the journal.
+	 */
+	public MutationJournal(File journalFile, File snapshotFile, int groupCommitSize, int compactionThreshold)
+	{
+		if (groupCommitSize < 1 || compactionThreshold < 1)
+			throw new IllegalArgumentException("group commit size and compaction threshold must be positive");
+		this.journalFile = journalFile;
+		this.snapshotFile = snapshotFile;
+		this.groupCommitSize = groupCommitSize;
+		this.compactionThreshold = compactionThreshold;
+		codec = new StudentCodec();
+		checksum = new CRC32();
+		payloadBuffer = new RecordBuffer(64);
+		payloadOutput = new DataOutputStream(payloadBuffer);
+		pendingBuffer = new RecordBuffer(64 * groupCommitSize);
+		pendingOutput = new DataOutputStream(pendingBuffer);
+	}
+
+	/**
+	 * Recover the tree: load the last snapshot (if any) and replay the journal on top of it.
+	 * A torn or corrupted record ends the replay, and the journal is truncated right before it.
+	 * After recovery the journal is open for appending new records.
+	 * @return the recovered tree.
+	 * @throws IOException if the snapshot or the journal could not be read.
+	 */
+	public WiredBST<Student> recover() throws IOException
+	{
+		WiredBST<Student> tree = snapshotFile.exists()
+				? WiredBST.loadSnapshot(snapshotFile, codec) : new WiredBST<Student>();
+
+		// replay all complete & intact records:
+		long validLength = 0;
+		int replayedRecords = 0;
+		if (journalFile.exists())
+		{
+			try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile), 1 << 16)))
+			{
+				byte[] payload = new byte[MAX_PAYLOAD_SIZE];
+				while (true)
+				{
+					int length = input.readInt();
+					int expectedChecksum = input.readInt();
+					if (length <= 0 || length > MAX_PAYLOAD_SIZE)
+						break;
+					input.readFully(payload, 0, length);
+					checksum.reset();
+					checksum.update(payload, 0, length);
+					if ((int) checksum.getValue() != expectedChecksum)
+						break;
+					replay(tree, new DataInputStream(new ByteArrayInputStream(payload, 0, length)));
+					validLength += HEADER_SIZE + length;
+					replayedRecords++;
+				}
+			}
+			catch (EOFException endOfJournal)
+			{
+				// end of journal, possibly in the middle of a torn record
+			}
+		}
+
+		// open for appending, dropping a torn tail if there is one:
+		channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		if (channel.size() > validLength)
+		{
+			System.err.printf("Journal %s: dropping %d bytes of a torn record\n", journalFile.getName(), channel.size() - validLength);
+			channel.truncate(validLength);
+			channel.force(true);
+		}
+		channel.position(validLength);
+		recordsSinceCompaction = replayedRecords;
+		return tree;
+	}
+
+	/*
+	 * Apply a single journal record on the tree.
+	 * Records are applied idempotently (insert if absent, delete if present), because
+	 * a crash between writing a snapshot and emptying the journal replays records which the snapshot already has.
+	 */
+	private void replay(WiredBST<Student> tree, DataInputStream record) throws IOException
+	{
+		byte opcode = record.readByte();
+		if (opcode == Command.INSERT)
+		{
+			Student student = codec.read(record);
+			if (tree.search(tree.getRoot(), student) == null)
+				tree.insert(student);
+		}
+		else if (opcode == Command.DELETE)
+		{
+			BSTNode<Student> node = tree.searchByKey(record.readInt(), Student::getId);
+			if (node != null)
+				tree.release(tree.delete(node));
+		}
+		else throw new IOException("Invalid journal record op-code: " + opcode);
+	}
+
+	/**
+	 * Append an insert record.
+	 * @param student - the student which was inserted.
+	 * @throws IOException if a group commit failed.
+	 */
+	public void logInsert(Student student) throws IOException
+	{
+		payloadBuffer.reset();
+		payloadOutput.writeByte(Command.INSERT);
+		codec.write(payloadOutput, student);
+		append();
+	}
+
+	/**
+	 * Append a delete record.
+	 * @param id - the id of the student which was deleted.
+	 * @throws IOException if a group commit failed.
+	 */
+	public void logDelete(int id) throws IOException
+	{
+		payloadBuffer.reset();
+		payloadOutput.writeByte(Command.DELETE);
+		payloadOutput.writeInt(id);
+		append();
+	}
+
+	/* frame the current payload as a record, and commit the group once it's full */
+	private void append() throws IOException
+	{
+		if (channel == null)
+			throw new IllegalStateException("Journal must be recovered before appending to it");
+		checksum.reset();
+		checksum.update(payloadBuffer.array(), 0, payloadBuffer.size());
+		pendingOutput.writeInt(payloadBuffer.size());
+		pendingOutput.writeInt((int) checksum.getValue());
+		payloadBuffer.writeTo(pendingOutput);
+		pendingRecords++;
+		recordsSinceCompaction++;
+		if (pendingRecords >= groupCommitSize)
+			sync();
+	}
+
+	/**
+	 * Group commit: write all pending records with one write, and force them to disk.
+	 * Callers which must not lose an acknowledged mutation (e.g, a single mutation from the GUI)
+	 * call it right after logging it, rather than waiting for the group to fill up.
+	 * @throws IOException if writing failed.
+	 */
+	public void sync() throws IOException
+	{
+		if (pendingRecords == 0 || channel == null)
+			return;
+		ByteBuffer buffer = ByteBuffer.wrap(pendingBuffer.array(), 0, pendingBuffer.size());
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		channel.force(false);
+		pendingBuffer.reset();
+		pendingRecords = 0;
+	}
+
+	/**
+	 * Compact the journal if enough records were appended since the last compaction.
+	 * @param tree - the current state of the tree.
+	 * @throws IOException if compaction failed.
+	 */
+	public void compactIfNeeded(WiredBST<Student> tree) throws IOException
+	{
+		if (recordsSinceCompaction >= compactionThreshold)
+			compact(tree);
+	}
+
+	/**
+	 * Compaction: fold the journal into a new snapshot of the given tree, and empty the journal.
+	 * The snapshot is written to a temporary file and moved over the old one atomically,
+	 * so a crash at any point leaves either the old snapshot with the full journal, or the new one.
+	 * This is also used when the tree is replaced as a whole (cleared, or loaded from a snapshot).
+	 * @param tree - the current state of the tree.
+	 * @throws IOException if the snapshot could not be written.
+	 */
+	public void compact(WiredBST<Student> tree) throws IOException
+	{
+		// records which are still pending are already included in the tree state:
+		pendingBuffer.reset();
+		pendingRecords = 0;
+
+		File temporaryFile = new File(snapshotFile.getPath() + ".tmp");
+		tree.saveSnapshot(temporaryFile, codec);
+		try (FileChannel snapshotChannel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.WRITE))
+		{
+			snapshotChannel.force(true);
+		}
+		Files.move(temporaryFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		if (channel != null)
+		{
+			channel.truncate(0);
+			channel.position(0);
+			channel.force(true);
+		}
+		recordsSinceCompaction = 0;
+	}
+
+	/** Commit pending records and close the journal */
+	@Override
+	public void close() throws IOException
+	{
+		if (channel == null)
+			return;
+		sync();
+		channel.close();
+		channel = null;
+	}
+
+	/* a byte array output stream which exposes it's internal buffer, so records are checksummed & written without a copy */
+	private static class RecordBuffer extends ByteArrayOutputStream
+	{
+		RecordBuffer(int size)
+		{
+			super(size);
+		}
+
+		/* the internal buffer, valid up to size() */
+		byte[] array()
+		{
+			return buf;
+		}
+	}
+} // end of class
@@ -0,0 +1,173 @@
+package ioHandler;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * @author Chanan Welt
+ *
+ * OutputSink - the output of processing an input file.
+ * All output goes through one large buffered writer instead of a printf per line,
+ * and is filtered by a verbosity level, so that the commands of a large file
+ * could be processed without being slowed down by console output.
+ * The sink also counts the processed commands, and prints a summary at the end of each run.
+ */
+public class OutputSink implements Flushable
+{
+	/** Verbosity levels, from the most detailed to the least */
+	public enum Verbosity
+	{
+		FULL,    // echo each input line, followed by it's result
+		RESULTS, // results of the commands only
+		ERRORS,  // failed & invalid commands only
+		SUMMARY  // nothing but the end of run summary
+	}
+
+	// Constants
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final byte COMMAND_TYPES = Command.UNKNOWN + 1;
+
+	// Instance variables
+	private final Writer writer;
+	private final Verbosity verbosity;
+	private final long[] commandCounters;
+	private long errorCounter;
+	private long runStartTime;
+
+	/** Constructor 1 - buffered output to the standard output
+	 * @param verbosity - the level of details to print.
+	 */
+	public OutputSink(Verbosity verbosity)
+	{
+		this(System.out, verbosity);
+	}
+
+	/** Constructor 2 - buffered output to a given stream
+	 * @param stream - the stream to write to (it is flushed, but never closed by the sink).
+	 * @param verbosity - the level of details to print.
+	 */
+	public OutputSink(OutputStream stream, Verbosity verbosity)
+	{
+		this.writer = new BufferedWriter(new OutputStreamWriter(stream), BUFFER_SIZE);
+		this.verbosity = verbosity;
+		this.commandCounters = new long[COMMAND_TYPES];
+	}
+
+	// level queries, used to skip formatting of output which would not be printed:
+	public Verbosity getVerbosity() {return verbosity;}
+	public boolean isEchoEnabled() {return verbosity == Verbosity.FULL;}
+	public boolean isResultEnabled() {return verbosity.compareTo(Verbosity.RESULTS) <= 0;}
+	public boolean isErrorEnabled() {return verbosity.compareTo(Verbosity.ERRORS) <= 0;}
+
+	/** Start a new run: reset the counters & the clock */
+	public void startRun()
+	{
+		for (int i = 0; i < COMMAND_TYPES; i++)
+			commandCounters[i] = 0;
+		errorCounter = 0;
+		runStartTime = System.nanoTime();
+	}
+
+	/**
+	 * Count a processed command, and echo it's input line if echo is enabled.
+	 * @param lineNumber - the line number in the input file.
+	 * @param opcode - the command op-code.
+	 * @param line - the input line.
+	 */
+	public void command(int lineNumber, byte opcode, String line)
+	{
+		commandCounters[opcode]++;
+		if (isEchoEnabled())
+			write("Line " + lineNumber + " input: " + line + "\nLine " + lineNumber + " output:");
+	}
+
+	/**
+	 * Print the result of a command.
+	 * @param lineNumber - the line number in the input file.
+	 * @param text - the result (it is formatted only if isResultEnabled).
+	 */
+	public void result(int lineNumber, String text)
+	{
+		if (isEchoEnabled())
+			write(text + "\n");
+		else if (isResultEnabled())
+			write("Line " + lineNumber + ": " + text + "\n");
+	}
+
+	/**
+	 * Count and print a failed or invalid command.
+	 * @param lineNumber - the line number in the input file.
+	 * @param text - the error description.
+	 */
+	public void error(int lineNumber, String text)
+	{
+		errorCounter++;
+		if (isEchoEnabled())
+			write(text + "\n");
+		else if (isErrorEnabled())
+			write("Line " + lineNumber + ": " + text + "\n");
+	}
+
+	/** Number of failed & invalid commands in the current run */
+	public long getErrorCount() {return errorCounter;}
+
+	/** Total number of commands processed in the current run */
+	public long getCommandCount()
+	{
+		long total = 0;
+		for (long counter : commandCounters)
+			total += counter;
+		return total;
+	}
+
+	/**
+	 * Print the end of run summary: counts per command type, errors, time and throughput,
+	 * and flush all buffered output.
+	 * @param title - what was processed (e.g. the file name).
+	 */
+	public void printSummary(String title)
+	{
+		double seconds = (System.nanoTime() - runStartTime) / 1e9;
+		long total = getCommandCount();
+		StringBuilder summary = new StringBuilder();
+		summary.append(String.format("\n>Summary of %s: %d commands, %d failed, %.3f seconds, %.0f commands/sec\n",
+				title, total, errorCounter, seconds, (seconds > 0) ? total / seconds : 0.0));
+		for (byte opcode = 0; opcode < COMMAND_TYPES; opcode++)
+			if (commandCounters[opcode] > 0)
+				summary.append(String.format("  %-12s %d\n", Command.nameOf(opcode), commandCounters[opcode]));
+		write(summary.toString());
+		flush();
+	}
+
+	/** Write all buffered output */
+	@Override
+	public void flush()
+	{
+		try
+		{
+			writer.flush();
+		}
+		catch (IOException ioException)
+		{
+			throw new UncheckedIOException(ioException);
+		}
+	}
+
+	/* utility method for writing text to the buffer */
+	private void write(String text)
+	{
+		try
+		{
+			writer.write(text);
+		}
+		catch (IOException ioException)
+		{
+			throw new UncheckedIOException(ioException);
+		}
+	}
+} // end of class
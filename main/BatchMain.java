@@ -0,0 +1,161 @@
+package main;
+
+import java.io.File;
+import java.io.IOException;
+
+import ioHandler.BinaryCommandLog;
+import ioHandler.IOHandler;
+import ioHandler.OutputSink;
+import student.Student;
+import student.StudentCodec;
+import wiredBinarySearchTree.WiredBST;
+
+/**
+ * @author Chanan Welt.
+ * Headless batch entry point: processes command files without the GUI.
+ * This class (and everything it uses) never touches Swing or AWT,
+ * so it starts fast and runs on servers without a display.
+ *
+ * Usage: BatchMain [options] <input file>...
+ *   -engine sequential|pipelined|auto   how text files are parsed (default auto)
+ *   -workers <n>                        parsing threads of the pipelined engine
+ *   -verbosity full|results|errors|summary  output level (default summary)
+ *   -save <snapshot file>               save the resulting tree to a snapshot
+ * Input files are processed in the given order on the same tree;
+ * a tree snapshot loads the tree, a binary command log is replayed, and text files are parsed.
+ *
+ * Exit status: 0 - all commands succeeded, 1 - some commands failed,
+ * 2 - invalid arguments, 3 - an input or output file could not be read or written.
+ */
+public class BatchMain
+{
+	// Exit status codes
+	public static final int EXIT_SUCCESS = 0;
+	public static final int EXIT_COMMAND_ERRORS = 1;
+	public static final int EXIT_USAGE = 2;
+	public static final int EXIT_IO_ERROR = 3;
+
+	// Text files which are smaller than this are parsed sequentially by the auto engine:
+	private static final long PIPELINE_THRESHOLD = 4L << 20;
+
+	public static void main(String[] args)
+	{
+		System.exit(run(args));
+	}
+
+	/**
+	 * Run the batch processing.
+	 * @param args - command line arguments (see class documentation).
+	 * @return the exit status.
+	 */
+	public static int run(String[] args)
+	{
+		System.setProperty("java.awt.headless", "true");
+		String engine = "auto";
+		int workerCount = IOHandler.defaultWorkerCount();
+		OutputSink.Verbosity verbosity = OutputSink.Verbosity.SUMMARY;
+		File saveFile = null;
+		int firstInput = 0;
+
+		// parse options:
+		try
+		{
+			for (; firstInput < args.length && args[firstInput].startsWith("-"); firstInput++)
+			{
+				String option = args[firstInput];
+				if (firstInput + 1 == args.length)
+					return usage("Missing value for " + option);
+				String value = args[++firstInput];
+				if (option.equals("-engine") && value.matches("sequential|pipelined|auto"))
+					engine = value;
+				else if (option.equals("-workers"))
+					workerCount = Integer.parseInt(value);
+				else if (option.equals("-verbosity"))
+					verbosity = OutputSink.Verbosity.valueOf(value.toUpperCase());
+				else if (option.equals("-save"))
+					saveFile = new File(value);
+				else return usage("Invalid option " + option + " " + value);
+			}
+		}
+		catch (IllegalArgumentException exception)
+		{
+			return usage("Invalid option value: " + exception.getMessage());
+		}
+		if (workerCount < 1)
+			return usage("Invalid worker count " + workerCount + ", it must be positive");
+		if (firstInput == args.length)
+			return usage("No input files");
+
+		// process the input files in order, on the same tree:
+		WiredBST<Student> tree = new WiredBST<Student>();
+		IOHandler ioHandler = new IOHandler();
+		OutputSink output = new OutputSink(verbosity);
+		ioHandler.setOutputSink(output);
+		long startTime = System.nanoTime();
+		long commandCounter = 0, errorCounter = 0;
+		for (int i = firstInput; i < args.length; i++)
+		{
+			File inputFile = new File(args[i]);
+			if (!inputFile.canRead())
+			{
+				System.err.println("Cannot read input file " + inputFile.getPath());
+				return EXIT_IO_ERROR;
+			}
+
+			// a snapshot replaces the tree as a whole:
+			if (WiredBST.isSnapshot(inputFile))
+			{
+				try
+				{
+					tree = WiredBST.loadSnapshot(inputFile, new StudentCodec());
+					continue;
+				}
+				catch (IOException ioException)
+				{
+					System.err.println("Error loading snapshot " + inputFile.getPath() + ": " + ioException.getMessage());
+					return EXIT_IO_ERROR;
+				}
+			}
+			
+			// command files are applied on the tree by the chosen engine:
+			boolean completed;
+			if (BinaryCommandLog.isCommandLog(inputFile) || engine.equals("sequential")
+					|| (engine.equals("auto") && (workerCount == 1 || inputFile.length() < PIPELINE_THRESHOLD)))
+				completed = ioHandler.processInputFile(tree, inputFile);
+			else completed = ioHandler.processInputFilePipelined(tree, inputFile, workerCount);
+			if (!completed)
+				return EXIT_IO_ERROR;
+			commandCounter += output.getCommandCount();
+			errorCounter += output.getErrorCount();
+		}
+
+		// optionally save the result:
+		if (saveFile != null)
+		{
+			try
+			{
+				tree.saveSnapshot(saveFile, new StudentCodec());
+			}
+			catch (IOException ioException)
+			{
+				System.err.println("Error saving snapshot " + saveFile.getPath() + ": " + ioException.getMessage());
+				return EXIT_IO_ERROR;
+			}
+		}
+
+		// print total throughput:
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		System.out.printf(">Total: %d files, %d commands, %d failed, %.3f seconds, %.0f commands/sec\n",
+				args.length - firstInput, commandCounter, errorCounter, seconds, (seconds > 0) ? commandCounter / seconds : 0.0);
+		return (errorCounter == 0) ? EXIT_SUCCESS : EXIT_COMMAND_ERRORS;
+	}
+
+	/* print usage message, and return the usage exit status */
+	private static int usage(String error)
+	{
+		System.err.println(error);
+		System.err.println("Usage: java main.BatchMain [-engine sequential|pipelined|auto] [-workers <n>]"
+				+ " [-verbosity full|results|errors|summary] [-save <snapshot file>] <input file>...");
+		return EXIT_USAGE;
+	}
+}
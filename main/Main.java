@@ -1,22 +1,134 @@
 package main;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import ioHandler.IOHandler;
+import ioHandler.MutationJournal;
 import student.Student;
+import student.StudentCodec;
 import treeGUI.GUIApplication;
 import wiredBinarySearchTree.WiredBST;
 
 /**
  * @author Chanan Welt.
  * This is the main program for initiating the application.
+ * Usage: Main [-journal <base path>] [-groupCommit <records>] [snapshot or input file]
+ *    or: Main -batch [batch options] <input file>... (headless, see BatchMain)
+ * With -journal, the tree is recovered from <base path>.snapshot & <base path>.journal,
+ * and every mutation is logged to the journal.
  */
 public class Main 
 {
+	// Constants
+	private static final int DEFAULT_GROUP_COMMIT_SIZE = 64;
+	private static final int COMPACTION_THRESHOLD = 100000;
+	
 	public static void main(String[] args)
+	{
+		// headless batch mode, which must not load any GUI classes: 
+		if (args.length > 0 && args[0].equals("-batch"))
+		{
+			System.exit(BatchMain.run(Arrays.copyOfRange(args, 1, args.length)));
+			return;
+		}
+		int status = startGui(args);
+		if (status != BatchMain.EXIT_SUCCESS)
+			System.exit(status);
+	}
+	
+	/* GUI mode: recover or load the tree, and open the application window. returns the exit status on a usage error */
+	private static int startGui(String[] args)
 	{
 		// create an empty wired binary search tree: 
 		WiredBST<Student> wiredBinarySearchTree = new WiredBST<Student>();
+		MutationJournal journal = null;
+		String journalBasePath = null;
+		int groupCommitSize = DEFAULT_GROUP_COMMIT_SIZE;
+		File initialFile = null;
+		
+		// parse command line arguments:
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i].equals("-journal") && i + 1 < args.length)
+				journalBasePath = args[++i];
+			else if (args[i].equals("-groupCommit") && i + 1 < args.length)
+			{
+				try
+				{
+					groupCommitSize = Integer.parseInt(args[++i]);
+				}
+				catch (NumberFormatException exception)
+				{
+					return usage("Invalid option value: " + exception.getMessage());
+				}
+				if (groupCommitSize < 1)
+					return usage("Invalid group commit size " + groupCommitSize + ", it must be positive");
+			}
+			else initialFile = new File(args[i]);
+		}
+		
+		try
+		{
+			// recover the tree from the last snapshot & journal:
+			if (journalBasePath != null)
+			{
+				journal = new MutationJournal(new File(journalBasePath + ".journal"), new File(journalBasePath + ".snapshot"), 
+						groupCommitSize, COMPACTION_THRESHOLD);
+				wiredBinarySearchTree = journal.recover();
+				final MutationJournal openJournal = journal;
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> closeJournal(openJournal)));
+			}
+			
+			// optionally start from a tree snapshot or an input file given as argument: 
+			if (initialFile != null)
+			{
+				if (WiredBST.isSnapshot(initialFile))
+				{
+					wiredBinarySearchTree = WiredBST.loadSnapshot(initialFile, new StudentCodec());
+					if (journal != null)
+						journal.compact(wiredBinarySearchTree);
+				}
+				else
+				{
+					IOHandler ioHandler = new IOHandler();
+					ioHandler.setJournal(journal);
+					ioHandler.processInputFile(wiredBinarySearchTree, initialFile);
+				}
+			}
+		}
+		catch (IOException ioException)
+		{
+			System.err.println("Error loading tree: " + ioException.getMessage());
+		}
 				
 		// initiate gui application: 
 		GUIApplication app = new GUIApplication(wiredBinarySearchTree);
+		app.setJournal(journal);
 		app.initGui();
+		return BatchMain.EXIT_SUCCESS;
+	}
+	
+	/* print usage message, and return the usage exit status */
+	private static int usage(String error)
+	{
+		System.err.println(error);
+		System.err.println("Usage: java main.Main [-journal <base path>] [-groupCommit <records>] [snapshot or input file]");
+		System.err.println("   or: java main.Main -batch [batch options] <input file>...");
+		return BatchMain.EXIT_USAGE;
+	}
+	
+	/* commit the pending journal records on exit */
+	private static void closeJournal(MutationJournal journal)
+	{
+		try
+		{
+			journal.close();
+		}
+		catch (IOException ioException)
+		{
+			System.err.println("Error closing journal: " + ioException.getMessage());
+		}
 	}
-}
\ No newline at end of file
+}
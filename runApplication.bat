@@ -1,3 +1,6 @@
-java  -classpath .;.. main.Main 
+call build.bat
+if errorlevel 1 goto end
+java  -classpath bin main.Main 
+:end
 pause
 
@@ -0,0 +1,2 @@
+call build.bat || exit /b 1
+java  -classpath bin main.BatchMain %*
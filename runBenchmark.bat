@@ -0,0 +1,2 @@
+call build.bat || exit /b 1
+java  -Xms2g -Xmx2g -classpath bin benchmark.BenchmarkMain %*
@@ -0,0 +1,217 @@
+package student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+import binaryTree.BSTNode;
+import wiredBinarySearchTree.TreeListener;
+import wiredBinarySearchTree.WiredBST;
+
+/**
+ * @author Chanan Welt
+ *
+ * NameIndex - a secondary index of a students tree by the students names, beside the tree order by id.
+ * Each distinct name has an entry in an open addressing hash table (linear probing), 
+ * holding the nodes of all the students with that name, so an exact name lookup is O(1).
+ * The distinct names are also kept sorted, so a prefix lookup is O(log n) plus the size of the result.
+ * The index listens to the tree, so it's kept consistent by every insert & delete;
+ * students without a name are not indexed.
+ */
+public class NameIndex implements TreeListener<Student>
+{
+	// Constants
+	private static final int INITIAL_CAPACITY = 64; // slots of an empty table (a power of 2)
+	private static final Comparator<BSTNode<Student>> BY_ID = (a, b) -> a.getData().compareTo(b.getData());
+
+	/* the nodes of the students with one name, ordered by id */
+	private static class NameEntry
+	{
+		final String name;
+		BSTNode<Student>[] nodes;
+		int count;
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		NameEntry(String name)
+		{
+			this.name = name;
+			nodes = new BSTNode[2];
+		}
+	}
+
+	// Instance variables
+	private final WiredBST<Student> tree;
+	private NameEntry[] slots; // the hash table, with at most half of the slots used
+	private int nameCount; // number of distinct names (used slots)
+	private int size; // number of indexed nodes
+	private final TreeSet<String> sortedNames = new TreeSet<String>(); // distinct names, for prefix lookups
+
+	/**
+	 * Constructor - index all the students in the tree, and follow its changes.
+	 * @param tree - the tree to index.
+	 */
+	public NameIndex(WiredBST<Student> tree)
+	{
+		this.tree = tree;
+		treeRebuilt();
+		tree.addTreeListener(this);
+	}
+
+	/** Stop following the tree (e.g, when the index is no longer needed) */
+	public void detach()
+	{
+		tree.removeTreeListener(this);
+	}
+
+	// basic getters:
+	public WiredBST<Student> getTree() {return tree;}
+	public int size() {return size;}
+
+	/**
+	 * Search by exact name.
+	 * @param name - the name to search for.
+	 * @return the nodes of the students with this name, ordered by id (an empty list if there are none).
+	 */
+	public List<BSTNode<Student>> search(String name)
+	{
+		List<BSTNode<Student>> result = new ArrayList<BSTNode<Student>>();
+		collect(name, result, Integer.MAX_VALUE);
+		return result;
+	}
+
+	/**
+	 * Search by a name prefix.
+	 * @param prefix - the prefix of the names to search for.
+	 * @param limit - the maximal number of nodes to return.
+	 * @return the nodes of the students whose name starts with the prefix, ordered by name & id.
+	 */
+	public List<BSTNode<Student>> searchPrefix(String prefix, int limit)
+	{
+		List<BSTNode<Student>> result = new ArrayList<BSTNode<Student>>();
+		for (String name : sortedNames.tailSet(prefix, true))
+		{
+			if (!name.startsWith(prefix) || result.size() >= limit)
+				break;
+			collect(name, result, limit);
+		}
+		return result;
+	}
+
+	@Override
+	public void nodeInserted(BSTNode<Student> node)
+	{
+		String name = node.getData().getName();
+		if (name == null)
+			return;
+		int index = find(name);
+		NameEntry entry = slots[index];
+		if (entry == null)
+		{// first student with this name:
+			entry = slots[index] = new NameEntry(name);
+			sortedNames.add(name);
+			if (++nameCount * 2 > slots.length)
+				resize(slots.length * 2);
+		}
+		if (entry.count == entry.nodes.length)
+			entry.nodes = Arrays.copyOf(entry.nodes, entry.count * 2);
+
+		// keep the entry ordered by id (a rebuild inserts in id order, so it only appends):
+		int position = -Arrays.binarySearch(entry.nodes, 0, entry.count, node, BY_ID) - 1;
+		System.arraycopy(entry.nodes, position, entry.nodes, position + 1, entry.count - position);
+		entry.nodes[position] = node;
+		entry.count++;
+		size++;
+	}
+
+	@Override
+	public void nodeRemoved(BSTNode<Student> node)
+	{
+		String name = node.getData().getName();
+		if (name == null)
+			return;
+		int index = find(name);
+		NameEntry entry = slots[index];
+		if (entry == null)
+			return;
+
+		// remove the node from its entry, keeping the order by id:
+		int position = Arrays.binarySearch(entry.nodes, 0, entry.count, node, BY_ID);
+		if (position >= 0 && entry.nodes[position] == node)
+		{
+			entry.count--;
+			System.arraycopy(entry.nodes, position + 1, entry.nodes, position, entry.count - position);
+			entry.nodes[entry.count] = null;
+			size--;
+		}
+		if (entry.count > 0)
+			return;
+
+		// last student with this name - remove the entry by backward shift deletion,
+		// moving up following entries which could not be found past an empty slot:
+		sortedNames.remove(name);
+		nameCount--;
+		int mask = slots.length - 1;
+		slots[index] = null;
+		for (int next = (index + 1) & mask; slots[next] != null; next = (next + 1) & mask)
+		{
+			int home = homeOf(slots[next].name);
+			if (((next - home) & mask) >= ((next - index) & mask))
+			{
+				slots[index] = slots[next];
+				slots[next] = null;
+				index = next;
+			}
+		}
+	}
+
+	@Override
+	public void treeRebuilt()
+	{
+		slots = new NameEntry[INITIAL_CAPACITY];
+		nameCount = 0;
+		size = 0;
+		sortedNames.clear();
+		BSTNode<Student> root = tree.getRoot();
+		for (BSTNode<Student> node = (root == null) ? null : tree.getMinimum(root); node != null; node = tree.getSuccessor(node))
+			nodeInserted(node);
+	}
+
+	/* home slot of a name: the spread hash code, masked by the table size */
+	private int homeOf(String name)
+	{
+		int hash = name.hashCode();
+		return (hash ^ (hash >>> 16)) & (slots.length - 1);
+	}
+
+	/* slot of the entry of the given name, or the empty slot where it should be added */
+	private int find(String name)
+	{
+		int mask = slots.length - 1;
+		int index = homeOf(name);
+		while (slots[index] != null && !slots[index].name.equals(name))
+			index = (index + 1) & mask;
+		return index;
+	}
+
+	/* add the nodes of the students with the given name to the result, ordered by id, until it has limit nodes */
+	private void collect(String name, List<BSTNode<Student>> result, int limit)
+	{
+		NameEntry entry = slots[find(name)];
+		if (entry == null)
+			return;
+		for (int i = 0; i < entry.count && result.size() < limit; i++)
+			result.add(entry.nodes[i]);
+	}
+
+	/* re-hash all entries into a table with the given number of slots */
+	private void resize(int capacity)
+	{
+		NameEntry[] oldSlots = slots;
+		slots = new NameEntry[capacity];
+		for (NameEntry entry : oldSlots)
+			if (entry != null)
+				slots[find(entry.name)] = entry;
+	}
+} // end of class
@@ -9,7 +9,7 @@ package student;
 public class Student implements Comparable<Student>  
 {
 	// Instance variables
-	private Integer id;
+	private int id; // a primitive key, so comparisons never unbox
 	private String name;
 	
 	/** Constructor */ 
@@ -22,11 +22,11 @@ public class Student implements Comparable<Student>
 	@Override
 	public String toString()
 	{
-		return id.toString(); // only id is relevant for the tree 
+		return Integer.toString(id); // only id is relevant for the tree 
 	}
 
 	/**CompareTo: Compare between 2 students by their Identification number property.
-	 *  This is simply done by using the java standard Integer class comparison.
+	 *  This is simply done by using the java standard Integer comparison of the primitive ids.
 	 *  @param otherStudent student to be compared to.
 	 *  @return 0, negative number or positive number, if this student id is accordingly 
 	 *   equal, less than or larger than the other students id. 
@@ -34,7 +34,7 @@ public class Student implements Comparable<Student>
 	@Override
 	public int compareTo(Student otherStudent)
 	{
-		return this.id.compareTo(otherStudent.id);
+		return Integer.compare(this.id, otherStudent.id);
 	}
 
 	/** checks student equality: returns true if both have same id, false otherwise. */ 
@@ -43,13 +43,20 @@ public class Student implements Comparable<Student>
 	{
 		if(obj instanceof Student)
 		{
-			return this.id.equals(((Student) obj).id);
+			return this.id == ((Student) obj).id;
 		}
 		else return false;
 	}
 	
+	/** hash code which is consistent with equals: based on the id only */ 
+	@Override
+	public int hashCode()
+	{
+		return Integer.hashCode(id);
+	}
+	
 	//basic Getters:
-	public Integer getId() {return id;}
+	public int getId() {return id;}
 	public String getName(){return name;}
 	
 } // end of class
@@ -0,0 +1,34 @@
+package student;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import wiredBinarySearchTree.ElementCodec;
+
+/**
+ * 
+ * @author Chanan Welt
+ * 
+ * StudentCodec - binary form of a student for tree snapshots: 
+ * the id, followed by a flag telling if the student has a name, and the name itself. 
+ */
+public class StudentCodec implements ElementCodec<Student>
+{
+	@Override
+	public void write(DataOutput output, Student student) throws IOException
+	{
+		output.writeInt(student.getId());
+		output.writeBoolean(student.getName() != null);
+		if (student.getName() != null)
+			output.writeUTF(student.getName());
+	}
+
+	@Override
+	public Student read(DataInput input) throws IOException
+	{
+		int id = input.readInt();
+		String name = input.readBoolean() ? input.readUTF() : null;
+		return new Student(id, name);
+	}
+} // end of class
@@ -3,12 +3,20 @@ package treeGUI;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.GridLayout;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.security.SecureRandom;
+import java.util.List;
 
 import javax.management.openmbean.KeyAlreadyExistsException;
 import javax.swing.BorderFactory;
@@ -21,14 +29,20 @@ import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
+import javax.swing.JSlider;
 import javax.swing.JTextField;
+import javax.swing.JViewport;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 
 import binaryTree.BSTNode;
 import ioHandler.IOHandler;
+import ioHandler.MutationJournal;
 import student.Student;
+import student.StudentCodec;
 import wiredBinarySearchTree.WiredBST;
 
 
@@ -63,6 +77,9 @@ public class GUIApplication extends JFrame implements ActionListener
 	// Data Instance variables:
 	WiredBST<Student> tree; // the tree
 	IOHandler ioHandler; // I/O handler for file import
+	MutationJournal journal; // optional write-ahead journal of the mutations
+	ImportWorker importWorker; // background import in progress, or null
+	private final Object treeLock = new Object(); // held while the tree is read or mutated during an import
 	BSTNode<Student> node;
 	String message;	
 	
@@ -80,13 +97,19 @@ public class GUIApplication extends JFrame implements ActionListener
 	private final JPanel queriesPanel;
 	private final JPanel treeWalksPanel;
 	private final JPanel extraFeaturesPanel;
+	private final JPanel importPanel;
 	private final TreePrinter<Student> canvasPanel;
 	private final JScrollPane canvasScrollPane;
+	private final MinimapPanel minimapPanel;
+	private final JPanel zoomPanel;
+	private final JSlider zoomSlider; // zoom factor is 2^(value/10)
+	private final JLabel zoomLabel;
 		
 	// Buttons & Controls:
 	private JButton insertButton;
 	private JButton deleteButton;
 	private JButton searchButton;
+	private JButton searchNameButton;
 	private JButton successorButton;
 	private JButton predecessorButton;
 	private JButton minimumButton;
@@ -98,6 +121,9 @@ public class GUIApplication extends JFrame implements ActionListener
 	private JButton printBFSButton;
 	private JButton clearButton;
 	private JButton importFileButton;
+	private JButton saveSnapshotButton;
+	private JButton cancelImportButton;
+	private final JProgressBar importProgressBar;
 	private final JTextField studentIDField;
 	private final JTextField studentNameField;
 	private final JCheckBox displayWiresCheckBox;
@@ -107,6 +133,7 @@ public class GUIApplication extends JFrame implements ActionListener
 	private final JLabel studentIDLabel;
 	private final JLabel studentNameLabel;
 	private final JLabel statusBar;
+	private final JLabel importRateLabel;
 	
 	// Icons:
 	private final Icon insertIcon;
@@ -115,6 +142,9 @@ public class GUIApplication extends JFrame implements ActionListener
 	private final Icon importIcon;
 	private final Icon clearIcon;
 	
+	// Constants: 
+	private static final int MAX_NAME_RESULTS = 20; // students listed in the status bar by a search by name
+	
 	// Fonts: 
 	private static final Font defaultFont = new Font("Tahoma", 0, 14);
 	
@@ -143,6 +173,8 @@ public class GUIApplication extends JFrame implements ActionListener
 		westPanel = new JPanel(new BorderLayout());
 		centerPanel = new JPanel(new BorderLayout());
 		canvasPanel = new TreePrinter<Student>(tree);		
+		canvasPanel.setTreeLock(treeLock);
+		ioHandler.setTreeLock(treeLock);
 		controllsPanel = new JPanel(new GridLayout(5,0,5,5));
 		inputFieldsPanel = new JPanel(new GridLayout(1,0,5,5));
 		dictionaryOperationsPanel = new JPanel(new GridLayout(1,0,5,5));
@@ -175,6 +207,28 @@ public class GUIApplication extends JFrame implements ActionListener
 		// Canvas panel display area section:
 		canvasScrollPane = new JScrollPane(canvasPanel, ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED, ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED);
 		centerPanel.add(canvasScrollPane);
+		
+		// Minimap & zoom section: 
+		minimapPanel = new MinimapPanel(canvasPanel, canvasScrollPane);
+		minimapPanel.setBorder(BorderFactory.createLineBorder(Color.black));
+		zoomLabel = new JLabel("Zoom: 100%", SwingConstants.CENTER);
+		zoomLabel.setFont(defaultFont);
+		zoomSlider = new JSlider(-100, 20, 0);
+		zoomSlider.setToolTipText("Zoom the tree in & out (or use Ctrl + mouse wheel on the tree)");
+		zoomSlider.addChangeListener(event -> zoomCanvas(Math.pow(2, zoomSlider.getValue() / 10.0)));
+		zoomPanel = new JPanel(new GridLayout(2, 1));
+		zoomPanel.add(zoomLabel);
+		zoomPanel.add(zoomSlider);
+		eastPanel.add(minimapPanel, BorderLayout.CENTER);
+		eastPanel.add(zoomPanel, BorderLayout.SOUTH);
+		
+		// Ctrl + mouse wheel zooms the tree, the mouse wheel alone scrolls it as usual: 
+		canvasPanel.addMouseWheelListener(event -> 
+		{
+			if (event.isControlDown())
+				zoomSlider.setValue(zoomSlider.getValue() - 2 * event.getWheelRotation());
+			else canvasScrollPane.dispatchEvent(SwingUtilities.convertMouseEvent(canvasPanel, event, canvasScrollPane));
+		});
 
 		// Input fields panel: 
 		studentIDLabel = new JLabel("Student ID (key): ");
@@ -216,9 +270,14 @@ public class GUIApplication extends JFrame implements ActionListener
 		searchButton.setBackground(green1);
 		searchButton.setToolTipText("Search for student in tree by it's id");
 		searchButton.addActionListener(this);
+		searchNameButton = new JButton("Search Name", searchIcon);
+		searchNameButton.setBackground(green1);
+		searchNameButton.setToolTipText("Search for students in tree by name (end with * to search by a name prefix)");
+		searchNameButton.addActionListener(this);
 		dictionaryOperationsPanel.add(insertButton);
 		dictionaryOperationsPanel.add(deleteButton);
 		dictionaryOperationsPanel.add(searchButton);
+		dictionaryOperationsPanel.add(searchNameButton);
 		
 		// Queries panel: 
 		minimumButton = new JButton("Minimum");
@@ -262,7 +321,10 @@ public class GUIApplication extends JFrame implements ActionListener
 		printBFSButton = new JButton("BFS print");
 		clearIcon = new ImageIcon(getClass().getResource("icons\\clear.png"));
 		clearButton = new JButton("Clear Tree", clearIcon);
+		saveSnapshotButton = new JButton("Save Snapshot");
+		saveSnapshotButton.setToolTipText("Save the tree to a binary snapshot file, which could be imported later");
 		importFileButton.addActionListener(this);
+		saveSnapshotButton.addActionListener(this);
 		printBFSButton.addActionListener(this);
 		clearButton.addActionListener(this);
 		displayWiresCheckBox = new JCheckBox("Display Tree Wires");
@@ -270,9 +332,11 @@ public class GUIApplication extends JFrame implements ActionListener
 		displayWiresCheckBox.setBackground(Color.YELLOW);
 		displayWiresCheckBox.addActionListener(this);
 		importFileButton.setBackground(green4);
+		saveSnapshotButton.setBackground(green4);
 		printBFSButton.setBackground(green4);
 		clearButton.setBackground(green4);
 		extraFeaturesPanel.add(importFileButton);
+		extraFeaturesPanel.add(saveSnapshotButton);
 		extraFeaturesPanel.add(printBFSButton);
 		extraFeaturesPanel.add(clearButton);
 		extraFeaturesPanel.add(displayWiresCheckBox);
@@ -292,6 +356,21 @@ public class GUIApplication extends JFrame implements ActionListener
 		statusBar.setBackground(Color.LIGHT_GRAY);
 		southPanel.add(statusBar, BorderLayout.SOUTH);
 		statusBar.setBorder(BorderFactory.createLineBorder(Color.black));
+		
+		// Import progress section (shown only while a file is imported):
+		importPanel = new JPanel(new BorderLayout(5, 5));
+		importProgressBar = new JProgressBar(0, 100);
+		importProgressBar.setStringPainted(true);
+		importRateLabel = new JLabel();
+		importRateLabel.setFont(defaultFont);
+		cancelImportButton = new JButton("Cancel Import");
+		cancelImportButton.setBackground(green4);
+		cancelImportButton.addActionListener(this);
+		importPanel.add(importRateLabel, BorderLayout.WEST);
+		importPanel.add(importProgressBar, BorderLayout.CENTER);
+		importPanel.add(cancelImportButton, BorderLayout.EAST);
+		importPanel.setVisible(false);
+		southPanel.add(importPanel, BorderLayout.CENTER);
 	}
 	
 	/**
@@ -299,9 +378,24 @@ public class GUIApplication extends JFrame implements ActionListener
 	 */
 	public void actionPerformed(ActionEvent event) 
 	{		
+		// CANCEL IMPORT (before input validation, which is irrelevant for it):
+		if (event.getSource() == cancelImportButton)
+		{
+			if (importWorker != null)
+				importWorker.requestCancel();
+			return;
+		}
+		
 		//clear status bar from previous status:
 		clearStatusBar();
 		
+		// SEARCH BY NAME (before the id validation, which is irrelevant for it):
+		if (event.getSource() == searchNameButton)
+		{
+			searchByName(studentNameField.getText().trim());
+			return;
+		}
+		
 		// validate input:
 		if(!inputIsValid(event))
 			return;
@@ -331,6 +425,8 @@ public class GUIApplication extends JFrame implements ActionListener
 			}
 			if (node != null)
 			{
+				if (journal != null)
+					logMutation(node.getData(), inputID);
 				message = String.format("Student <%s> inserted successfully", (inputID + " " + inputName));
 				displayMessage(message, JOptionPane.INFORMATION_MESSAGE);
 			}
@@ -341,12 +437,15 @@ public class GUIApplication extends JFrame implements ActionListener
 		// DELETE
 		else if (triggeringObject == deleteButton)
 		{
-			node = tree.delete(tree.search(tree.getRoot(), new Student(inputID, null)));
+			node = tree.deleteByKey(inputID, Student::getId);
 			if (node == null)
 				displayMessage(("Deleteion failed: ID " + inputID + " does not exist on tree"), JOptionPane.ERROR_MESSAGE);
 			else 
 			{
+				if (journal != null)
+					logMutation(null, inputID);
 				message = String.format("Student <%s> deleted successfully", (node.getData()));
+				tree.release(node); // done with the deleted node, let the tree recycle it
 				displayMessage(message, JOptionPane.INFORMATION_MESSAGE);
 			}
 			repaint();
@@ -356,8 +455,7 @@ public class GUIApplication extends JFrame implements ActionListener
 		// SEARCH
 		else if (triggeringObject == searchButton)
 		{
-			Student studentKey = new Student(inputID, null);
-			node = tree.search(tree.getRoot(), studentKey);
+			node = tree.searchByKey(inputID, Student::getId);
 			if (node == null)
 				displayMessage(("Search failed: ID " + inputID + " does not exist on this tree"), JOptionPane.INFORMATION_MESSAGE);
 			else 
@@ -404,8 +502,7 @@ public class GUIApplication extends JFrame implements ActionListener
 		// SUCCESSOR
 		else if (triggeringObject == successorButton)
 		{
-			Student studentKey = new Student(inputID, null);
-			node = tree.search(tree.getRoot(), studentKey);
+			node = tree.searchByKey(inputID, Student::getId);
 			if (node == null)
 				displayMessage(("successor not found: key "+inputID+" does not exist"), JOptionPane.INFORMATION_MESSAGE);
 			else 
@@ -421,8 +518,7 @@ public class GUIApplication extends JFrame implements ActionListener
 		// PREDECESSOR
 		else if (triggeringObject == predecessorButton)
 		{
-			Student studentKey = new Student(inputID, null);
-			node = tree.search(tree.getRoot(), studentKey);
+			node = tree.searchByKey(inputID, Student::getId);
 			if (node == null)
 				displayMessage(("predecessor not found: key "+inputID+" does not exist"), JOptionPane.INFORMATION_MESSAGE);
 			else 
@@ -466,7 +562,18 @@ public class GUIApplication extends JFrame implements ActionListener
 		// BREADTH-DEPTH-FIRST TREE TRAVESERAL:
 		else if (triggeringObject == printBFSButton)
 		{
-			System.out.println(tree);
+			try
+			{// stream the printout through a buffer, instead of building it as one string:
+				Writer output = new BufferedWriter(new OutputStreamWriter(System.out));
+				tree.printLevelOrder(output, Integer.MAX_VALUE);
+				output.append(System.lineSeparator());
+				output.flush(); // (standard output is not closed)
+			}
+			catch (IOException ioException)
+			{
+				displayMessage(("Error printing the tree: " + ioException.getMessage()), JOptionPane.ERROR_MESSAGE);
+				return;
+			}
 			setStatusBar("Breadth-Search-Scan Printout was sent to standart output");
 			return;
 		}
@@ -480,6 +587,7 @@ public class GUIApplication extends JFrame implements ActionListener
 				this.tree = new WiredBST<Student>();
 				setStatusBar("Tree was cleared, The tree is now empty.");
 				canvasPanel.setTree(tree);
+				compactJournal();
 				repaint();
 				return;
 			}
@@ -507,11 +615,22 @@ public class GUIApplication extends JFrame implements ActionListener
 			if (result != JFileChooser.APPROVE_OPTION)
 				return;
 
-			// pass file to ioHandler for further processing: 
+			// load snapshot files directly, pass other files to ioHandler for further processing: 
 			try 
 			{
 				File inputFile = fileChooser.getSelectedFile();
-				ioHandler.processInputFile(tree, inputFile);
+				if (WiredBST.isSnapshot(inputFile))
+				{
+					this.tree = WiredBST.loadSnapshot(inputFile, new StudentCodec());
+					canvasPanel.setTree(tree);
+					compactJournal();
+					setStatusBar("Tree was loaded from snapshot " + inputFile.getName());
+				}
+				else 
+				{// import other files in the background: 
+					startImport(inputFile);
+					return;
+				}
 				repaint();
 				return;
 			}
@@ -521,8 +640,101 @@ public class GUIApplication extends JFrame implements ActionListener
 				e.printStackTrace();
 			}
 		}
+		
+		// SAVE SNAPSHOT OF THE TREE:
+		else if (triggeringObject == this.saveSnapshotButton)
+		{
+			// let the user select the snapshot file to create:
+			JFileChooser fileChooser = new JFileChooser();
+			fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+			if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION)
+				return;
+			
+			try 
+			{
+				File snapshotFile = fileChooser.getSelectedFile();
+				tree.saveSnapshot(snapshotFile, new StudentCodec());
+				setStatusBar("Tree snapshot was saved to " + snapshotFile.getName());
+			}
+			catch (Exception e)
+			{
+				displayMessage(("Error saving snapshot: " + e.getMessage()), JOptionPane.ERROR_MESSAGE);
+			}
+		}
 	}
 
+	/* Zoom the tree canvas, keeping the center of the visible area in place */
+	private void zoomCanvas(double zoom)
+	{
+		JViewport viewport = canvasScrollPane.getViewport();
+		Rectangle view = viewport.getViewRect();
+		double factor = zoom / canvasPanel.getZoom();
+		canvasPanel.setZoom(zoom);
+		canvasScrollPane.validate();
+		
+		Dimension canvasSize = canvasPanel.getPreferredSize();
+		int x = (int) (view.getCenterX() * factor) - view.width / 2;
+		int y = (int) (view.getCenterY() * factor) - view.height / 2;
+		x = Math.max(0, Math.min(x, canvasSize.width - view.width));
+		y = Math.max(0, Math.min(y, canvasSize.height - view.height));
+		viewport.setViewPosition(new Point(x, y));
+		zoomLabel.setText(String.format("Zoom: %.1f%%", 100 * zoom));
+	}
+	
+	/* Start importing a file on a background worker, disabling all tree operations meanwhile */
+	private void startImport(File inputFile)
+	{
+		setControlsEnabled(false);
+		importProgressBar.setValue(0);
+		importRateLabel.setText("Importing " + inputFile.getName());
+		importPanel.setVisible(true);
+		importWorker = new ImportWorker(this, ioHandler, tree, inputFile);
+		importWorker.execute();
+	}
+	
+	/**
+	 * Show the progress of a background import (called on the Event Dispatch Thread).
+	 * @param percent - percentage of the file which was processed.
+	 * @param commandsProcessed - number of commands applied so far.
+	 * @param commandsPerSecond - import throughput.
+	 */
+	void showImportProgress(int percent, long commandsProcessed, double commandsPerSecond)
+	{
+		importProgressBar.setValue(percent);
+		importRateLabel.setText(String.format("%,d lines  (%,.0f lines/sec) ", commandsProcessed, commandsPerSecond));
+	}
+	
+	/**
+	 * A background import has stopped (called on the Event Dispatch Thread).
+	 * @param inputFile - the imported file.
+	 * @param completed - true if the whole file was processed.
+	 * @param cancelled - true if the user cancelled the import.
+	 */
+	void importFinished(File inputFile, boolean completed, boolean cancelled)
+	{
+		importWorker = null;
+		importPanel.setVisible(false);
+		setControlsEnabled(true);
+		if (cancelled)
+			setStatusBar("Import of " + inputFile.getName() + " was cancelled");
+		else if (completed)
+			setStatusBar("File " + inputFile.getName() + " was imported");
+		else displayMessage(("Error importing file " + inputFile.getName()), JOptionPane.ERROR_MESSAGE);
+		repaint();
+	}
+	
+	/* Enable or disable all controls which read or modify the tree */
+	private void setControlsEnabled(boolean enabled)
+	{
+		JButton[] buttons = {insertButton, deleteButton, searchButton, searchNameButton, successorButton, predecessorButton, 
+				minimumButton, maximumButton, medianButton, inOrderButton, preOrderButton, postOrderButton,
+				printBFSButton, clearButton, importFileButton, saveSnapshotButton};
+		for (JButton button : buttons)
+			button.setEnabled(enabled);
+		studentIDField.setEnabled(enabled);
+		studentNameField.setEnabled(enabled);
+	}
+	
 	/** Utility initialization method for setting GUI first time:*/
 	public void initGui() 
 	{
@@ -530,6 +742,77 @@ public class GUIApplication extends JFrame implements ActionListener
 		setVisible(true);
 	}
 	
+	/**
+	 * Set a write-ahead journal, to which all inserts & deletes would be logged,
+	 * including those which are done by importing an input file.
+	 * @param journal - the journal, or null for no journaling.
+	 */
+	public void setJournal(MutationJournal journal)
+	{
+		this.journal = journal;
+		ioHandler.setJournal(journal);
+	}
+	
+	/*
+	 * Log an insert (student is given) or a delete (student is null) to the journal.
+	 * The record is forced to disk right away, since the mutation is shown to the user as done,
+	 * and a GUI session may never fill a whole commit group.
+	 */
+	private void logMutation(Student insertedStudent, int id)
+	{
+		try
+		{
+			if (insertedStudent != null)
+				journal.logInsert(insertedStudent);
+			else journal.logDelete(id);
+			journal.sync();
+			journal.compactIfNeeded(tree);
+		}
+		catch (IOException ioException)
+		{
+			displayMessage(("Error writing journal: " + ioException.getMessage()), JOptionPane.ERROR_MESSAGE);
+		}
+	}
+	
+	/* Fold the journal into a snapshot of the current tree (used when the tree is replaced as a whole) */
+	private void compactJournal()
+	{
+		if (journal == null)
+			return;
+		try
+		{
+			journal.compact(tree);
+		}
+		catch (IOException ioException)
+		{
+			displayMessage(("Error compacting journal: " + ioException.getMessage()), JOptionPane.ERROR_MESSAGE);
+		}
+	}
+	
+	/* Search students by the name (or name prefix, if it ends with '*') using the name index of the tree */
+	private void searchByName(String name)
+	{
+		if (name.isEmpty() || name.equals("*"))
+		{
+			displayMessage("Student name is a mandatory field for this operation", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		List<BSTNode<Student>> nodes = name.endsWith("*")
+				? ioHandler.getNameIndex(tree).searchPrefix(name.substring(0, name.length() - 1), MAX_NAME_RESULTS + 1)
+				: ioHandler.getNameIndex(tree).search(name);
+		if (nodes.isEmpty())
+		{
+			displayMessage(("Search failed: no student named " + name + " on this tree"), JOptionPane.INFORMATION_MESSAGE);
+			return;
+		}
+		StringBuilder message = new StringBuilder("Students named ").append(name).append(':');
+		for (int i = 0; i < nodes.size() && i < MAX_NAME_RESULTS; i++)
+			message.append(" <").append(nodes.get(i).getData()).append('>');
+		if (nodes.size() > MAX_NAME_RESULTS)
+			message.append(" ...");
+		displayMessage(message.toString(), JOptionPane.INFORMATION_MESSAGE);
+	}
+	
 	/* Display Message on GUI and\or standard error output */
 	private void displayMessage(String message, int messageType)
 	{
@@ -0,0 +1,123 @@
+package treeGUI;
+
+import java.io.File;
+import java.util.List;
+
+import javax.swing.SwingWorker;
+
+import ioHandler.IOHandler;
+import ioHandler.ImportMonitor;
+import student.Student;
+import wiredBinarySearchTree.WiredBST;
+
+/**
+ * @author Chanan Welt
+ *
+ * ImportWorker - imports an input file on a background thread, so the GUI stays responsive.
+ * The IOHandler applies the commands while holding the tree lock for one batch at a time,
+ * and the worker publishes the progress to the Event Dispatch Thread,
+ * which updates the progress bar and repaints the tree at a throttled rate.
+ * The import could be cancelled between batches; the worker is done only once the IOHandler has stopped,
+ * so the tree is never mutated after done() was called.
+ */
+class ImportWorker extends SwingWorker<Boolean, Long> implements ImportMonitor
+{
+	// Constants
+	private static final long REPAINT_INTERVAL = 100000000L; // nano seconds between repaints (10 per second)
+	private static final long PIPELINE_THRESHOLD = 4L << 20; // files larger than this are parsed in parallel
+
+	// Instance variables
+	private final GUIApplication application;
+	private final IOHandler ioHandler;
+	private final WiredBST<Student> tree;
+	private final File inputFile;
+	private final long startTime;
+	private long lastRepaintTime;
+	private volatile boolean cancelRequested;
+
+	/**
+	 * Constructor
+	 * @param application - the application to report progress to.
+	 * @param ioHandler - the I/O handler which processes the file.
+	 * @param tree - the tree to apply the file on.
+	 * @param inputFile - the file to import.
+	 */
+	ImportWorker(GUIApplication application, IOHandler ioHandler, WiredBST<Student> tree, File inputFile)
+	{
+		this.application = application;
+		this.ioHandler = ioHandler;
+		this.tree = tree;
+		this.inputFile = inputFile;
+		this.startTime = System.nanoTime();
+	}
+
+	/** Background thread: process the file, return true if it was completed */
+	@Override
+	protected Boolean doInBackground()
+	{
+		ioHandler.setImportMonitor(this);
+		try
+		{
+			if (inputFile.length() > PIPELINE_THRESHOLD && IOHandler.defaultWorkerCount() > 1)
+				return ioHandler.processInputFilePipelined(tree, inputFile, IOHandler.defaultWorkerCount());
+			return ioHandler.processInputFile(tree, inputFile);
+		}
+		finally
+		{
+			ioHandler.setImportMonitor(null);
+		}
+	}
+
+	/** Background thread: called by the IOHandler after each applied batch */
+	@Override
+	public void progress(long commandsProcessed, long bytesProcessed)
+	{
+		long fileLength = Math.max(1, inputFile.length());
+		setProgress((int) Math.min(100, (100 * bytesProcessed) / fileLength));
+		publish(commandsProcessed);
+	}
+
+	/** Ask the import to stop after the current batch */
+	void requestCancel()
+	{
+		cancelRequested = true;
+	}
+
+	/** Background thread: checked by the IOHandler after each applied batch */
+	@Override
+	public boolean isCancelRequested()
+	{
+		return cancelRequested;
+	}
+
+	/** Event Dispatch Thread: show the latest progress, and repaint the tree once in a while */
+	@Override
+	protected void process(List<Long> chunks)
+	{
+		long commandsProcessed = chunks.get(chunks.size() - 1);
+		long now = System.nanoTime();
+		double seconds = (now - startTime) / 1e9;
+		application.showImportProgress(getProgress(), commandsProcessed, (seconds > 0) ? commandsProcessed / seconds : 0.0);
+		if (now - lastRepaintTime >= REPAINT_INTERVAL)
+		{
+			lastRepaintTime = now;
+			application.repaint();
+		}
+	}
+
+	/** Event Dispatch Thread: the import was completed, failed or cancelled */
+	@Override
+	protected void done()
+	{
+		boolean completed = false;
+		try
+		{
+			completed = get();
+		}
+		catch (Exception exception)
+		{
+			exception.printStackTrace();
+		}
+		application.importFinished(inputFile, completed, cancelRequested);
+	}
+} // end of class
@@ -0,0 +1,139 @@
+package treeGUI;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JViewport;
+
+/**
+ * @author Chanan Welt
+ *
+ * MinimapPanel - an overview of the whole tree, next to the scrolled tree canvas.
+ * The tree's shape is shown as the density of nodes in each level (rows) and horizontal slice (columns),
+ * as gathered by the tree layout, so painting the minimap never scans the tree itself.
+ * The density picture is prepared once per layout, and each paint just scales it and marks the visible area.
+ * Clicking or dragging on the minimap scrolls the canvas to center on that point.
+ */
+@SuppressWarnings("serial")
+class MinimapPanel extends JPanel
+{
+	// Constants
+	private static Color visibleAreaColor = new Color(220, 0, 0);
+	private static Color summaryTextColor = new Color(0, 120, 0);
+
+	// Instance variables
+	private final TreePrinter<?> canvasPanel;
+	private final JScrollPane canvasScrollPane;
+	private BufferedImage densityImage; // one pixel for each level & slice
+	private String summary, levelsSummary; // nodes count, levels count & widest level
+	private int[][] imageDensity; // the density which the image was prepared from
+
+	/**
+	 * Constructor
+	 * @param canvasPanel - the tree canvas to show.
+	 * @param canvasScrollPane - the scroll pane which scrolls the canvas.
+	 */
+	MinimapPanel(TreePrinter<?> canvasPanel, JScrollPane canvasScrollPane)
+	{
+		this.canvasPanel = canvasPanel;
+		this.canvasScrollPane = canvasScrollPane;
+		setPreferredSize(new Dimension(220, 160));
+		setBackground(Color.WHITE);
+		setToolTipText("Tree overview: click or drag to scroll the tree");
+
+		// follow the canvas scrolling & layout changes:
+		canvasScrollPane.getViewport().addChangeListener(event -> repaint());
+		canvasPanel.addPropertyChangeListener("layoutVersion", event -> repaint());
+
+		// scroll the canvas by clicking or dragging:
+		MouseAdapter mouseHandler = new MouseAdapter()
+		{
+			@Override
+			public void mousePressed(MouseEvent event) {scrollTo(event.getX(), event.getY());}
+
+			@Override
+			public void mouseDragged(MouseEvent event) {scrollTo(event.getX(), event.getY());}
+		};
+		addMouseListener(mouseHandler);
+		addMouseMotionListener(mouseHandler);
+	}
+
+	@Override
+	public void paintComponent(Graphics g)
+	{
+		super.paintComponent(g);
+		int[][] density = canvasPanel.getLevelDensity();
+		if (density == null || density.length == 0)
+			return;
+		if (density != imageDensity)
+			prepareDensityImage(density);
+
+		// the whole tree, stretched over the minimap:
+		g.drawImage(densityImage, 0, 0, getWidth(), getHeight(), null);
+
+		// the visible area of the canvas:
+		Dimension canvasSize = canvasPanel.getPreferredSize();
+		Rectangle view = canvasScrollPane.getViewport().getViewRect();
+		double scaleX = (double) getWidth() / canvasSize.width;
+		double scaleY = (double) getHeight() / canvasSize.height;
+		g.setColor(visibleAreaColor);
+		g.drawRect((int) (view.x * scaleX), (int) (view.y * scaleY),
+				Math.max(2, (int) (view.width * scaleX) - 1), Math.max(2, (int) (view.height * scaleY) - 1));
+		g.setColor(summaryTextColor);
+		g.drawString(summary, 4, getHeight() - 6 - g.getFontMetrics().getHeight());
+		g.drawString(levelsSummary, 4, getHeight() - 4);
+	}
+
+	/* Prepare the density picture: darker pixels for denser areas, on a logarithmic scale */
+	private void prepareDensityImage(int[][] density)
+	{
+		int levels = density.length, columns = density[0].length;
+		int maximalDensity = 1, nodeCount = 0, maximalWidth = 0;
+		for (int[] level : density)
+		{
+			int levelWidth = 0;
+			for (int count : level)
+			{
+				maximalDensity = Math.max(maximalDensity, count);
+				levelWidth += count;
+			}
+			nodeCount += levelWidth;
+			maximalWidth = Math.max(maximalWidth, levelWidth);
+		}
+		densityImage = new BufferedImage(columns, levels, BufferedImage.TYPE_INT_RGB);
+		double scale = Math.log(1 + maximalDensity);
+		for (int level = 0; level < levels; level++)
+			for (int column = 0; column < columns; column++)
+			{
+				int count = density[level][column];
+				int shade = (count == 0) ? 255 : 200 - (int) (170 * Math.log(1 + count) / scale);
+				densityImage.setRGB(column, level, (shade << 16) | (Math.min(255, shade + 40) << 8) | shade);
+			}
+		summary = String.format("%,d nodes", nodeCount);
+		levelsSummary = String.format("%d levels, widest %,d", levels, maximalWidth);
+		imageDensity = density;
+	}
+
+	/* Scroll the canvas so the given minimap point is at the center of the visible area */
+	private void scrollTo(int x, int y)
+	{
+		if (getWidth() == 0 || getHeight() == 0)
+			return;
+		Dimension canvasSize = canvasPanel.getPreferredSize();
+		JViewport viewport = canvasScrollPane.getViewport();
+		Dimension viewSize = viewport.getExtentSize();
+		int viewX = (int) ((double) x * canvasSize.width / getWidth()) - viewSize.width / 2;
+		int viewY = (int) ((double) y * canvasSize.height / getHeight()) - viewSize.height / 2;
+		viewX = Math.max(0, Math.min(viewX, canvasSize.width - viewSize.width));
+		viewY = Math.max(0, Math.min(viewY, canvasSize.height - viewSize.height));
+		viewport.setViewPosition(new Point(viewX, viewY));
+	}
+} // end of class
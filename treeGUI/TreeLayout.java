@@ -0,0 +1,462 @@
+package treeGUI;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import binaryTree.BSTNode;
+
+/**
+ * @author Chanan Welt
+ *
+ * TreeLayout - a compact "tidy tree" layout (Reingold & Tilford) of a wired binary search tree.
+ * Each sub-tree is laid out once, bottom up, and two sibling sub-trees are pushed apart
+ * only as much as needed so their facing contours keep a minimal distance at every level.
+ * The contours are linked lists of relative (delta) offsets, one entry per level,
+ * and the contour of the deeper sibling is appended to the parent's contour instead of being copied,
+ * so the whole layout takes linear time, and the width is proportional to the number of nodes
+ * (instead of 2^height of the former layout).
+ * A left child is always placed to the left of it's parent, and a right child to the right,
+ * even when it's an only child, so the two kinds of children are never confused.
+ * The layout uses no recursion, so even a degenerate (list like) tree could be laid out.
+ * Along with the positions, the bounding box of each sub-tree is kept (a bounding volume hierarchy
+ * which follows the tree itself), so a painter could skip every sub-tree that is outside the visible area,
+ * together with the size and the key range of each sub-tree, for drawing a whole sub-tree as a summary.
+ * Each layout is compared to the previous one, to find the areas whose drawing changed
+ * (nodes that moved, appeared, disappeared or got new neighbors), so cached drawings could be kept elsewhere.
+ * Reading the tree (capture) is separated from the layout itself: the capture is a single linear scan
+ * which copies the shape & data of the nodes, and must not overlap a change of the tree, while the layout
+ * uses only the captured copy, so it could run on a background thread while the tree keeps changing.
+ * A layout is never changed once it's done, so the previous layout could be displayed meanwhile.
+ * @param <T> - the data type saved in the tree.
+ */
+class TreeLayout<T extends Comparable<T>>
+{
+	// Constants
+	private static final int MAX_CHANGED_AREAS = 4096; // above this, the whole drawing is considered changed
+	static final int DENSITY_COLUMNS = 128; // horizontal resolution of the levels density histogram
+	
+	/** 
+	 * NodePlacement - the position of a node, with it's data & the neighbors which are printed in it 
+	 * (as they were at capture time), so the node could be printed while the tree changes, 
+	 * and a later layout could tell if the node's drawing changed. 
+	 */
+	@SuppressWarnings("serial")
+	static class NodePlacement<T extends Comparable<T>> extends Point
+	{
+		final BSTNode<T> parent, left, right; // left & right are the captured pointers, children or wires
+		final T data; // the tree may recycle a released node for another element
+		
+		NodePlacement(T data, BSTNode<T> parent, BSTNode<T> left, BSTNode<T> right, int x, int y)
+		{
+			super(x, y);
+			this.data = data;
+			this.parent = parent;
+			this.left = left;
+			this.right = right;
+		}
+		
+		/* determine if the node was drawn the same in another placement */ 
+		boolean isDrawnAs(NodePlacement<T> other)
+		{
+			return other != null && x == other.x && y == other.y 
+					&& parent == other.parent && left == other.left && right == other.right && data == other.data;
+		}
+	}
+
+	// layout parameters:
+	private final int nodeDimension; // width (and height) of each node
+	private final int minimalSeparation; // minimal horizontal distance between the left sides of two nodes in a level
+	private final int verticalStep; // vertical distance between levels
+
+	// layout results:
+	private HashMap<BSTNode<T>, NodePlacement<T>> coordinatesTable;
+	private int width, height, levelCount;
+	private List<Rectangle> changedAreas; // areas changed since the previous layout, or null if unknown
+	private int[][] levelDensity; // number of nodes in each level & horizontal slice of the layout
+	
+	// captured nodes in pre-order (the root is index 0), with their data, pointers & children indexes:
+	private BSTNode<T>[] nodes, leftPointer, rightPointer;
+	private T[] data;
+	private int[] parentIndex, leftChild, rightChild;
+	
+	// positions, by the pre-order index:
+	private NodePlacement<T>[] placements;
+	private int[] x, y;
+	
+	// sub-trees summaries: bounding box of the nodes, bounding box including the wires, size & key range:
+	private int[] nodesMinX, nodesMaxX, nodesMaxY;
+	private int[] boundsMinX, boundsMaxX, boundsMinY, boundsMaxY;
+	private int[] subtreeSize, minimumIndex, maximumIndex;
+
+	/**
+	 * Constructor
+	 * @param nodeDimension - width (and height) of each node.
+	 * @param horizontalGap - minimal empty space between two nodes in the same level.
+	 * @param verticalStep - vertical distance between the tops of two following levels.
+	 */
+	TreeLayout(int nodeDimension, int horizontalGap, int verticalStep)
+	{
+		this.nodeDimension = nodeDimension;
+		this.minimalSeparation = nodeDimension + horizontalGap;
+		this.verticalStep = verticalStep;
+		coordinatesTable = new HashMap<BSTNode<T>, NodePlacement<T>>();
+		levelDensity = new int[0][DENSITY_COLUMNS];
+	}
+
+	/**
+	 * Capture the tree rooted in the given node, for the layout: this is the only part which reads the tree,
+	 * so the tree must not change meanwhile (it's a single linear scan, without any allocation per node).
+	 * @param root - root of the tree, or null for an empty tree.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	void capture(BSTNode<T> root)
+	{
+		// list the nodes in pre-order, so each parent comes before it's children (the root keeps the tree's size):
+		int n = (root == null) ? 0 : root.getSize();
+		nodes = new BSTNode[n];
+		leftPointer = new BSTNode[n];
+		rightPointer = new BSTNode[n];
+		data = (T[]) new Comparable[n];
+		parentIndex = new int[n];
+		leftChild = new int[n];
+		rightChild = new int[n];
+		if (n == 0)
+			return;
+		int[] stack = new int[n];
+		int stackSize = 0, count = 0;
+		nodes[count] = root;
+		parentIndex[count] = -1;
+		stack[stackSize++] = count++;
+		while (stackSize > 0)
+		{
+			int i = stack[--stackSize];
+			BSTNode<T> node = nodes[i];
+			data[i] = node.getData();
+			leftPointer[i] = node.getLeft();
+			rightPointer[i] = node.getRight();
+			leftChild[i] = rightChild[i] = -1;
+			if (!node.isPointerWired(rightPointer[i]))
+			{
+				nodes[count] = rightPointer[i];
+				parentIndex[count] = i;
+				rightChild[i] = count;
+				stack[stackSize++] = count++;
+			}
+			if (!node.isPointerWired(leftPointer[i]))
+			{
+				nodes[count] = leftPointer[i];
+				parentIndex[count] = i;
+				leftChild[i] = count;
+				stack[stackSize++] = count++;
+			}
+		}
+	}
+
+	/**
+	 * Lay out the captured tree (without reading the tree itself, so it could run on any thread).
+	 * The top left corner of the left most node is at x = 0, and the root is at y = 0.
+	 * @param previous - the previous layout, to find the changed areas in (null if there is none).
+	 */
+	void layout(TreeLayout<T> previous)
+	{
+		HashMap<BSTNode<T>, NodePlacement<T>> previousTable = 
+				(previous == null) ? new HashMap<BSTNode<T>, NodePlacement<T>>() : previous.coordinatesTable;
+		coordinatesTable = new HashMap<BSTNode<T>, NodePlacement<T>>();
+		width = height = levelCount = 0;
+		levelDensity = new int[0][DENSITY_COLUMNS];
+		if (nodes.length > 0)
+			layoutNodes();
+		changedAreas = findChangedAreas(previousTable);
+	}
+	
+	/* the layout itself, of a non empty tree */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void layoutNodes()
+	{
+		int n = nodes.length;
+
+		// contour entries: entry i is node i in a left contour, entry n+i is node i in a right contour.
+		// each entry keeps the offset from the previous entry of it's contour (one level up):
+		int[] next = new int[2 * n];
+		int[] delta = new int[2 * n];
+		int[] leftTail = new int[n], rightTail = new int[n]; // last entry of each contour
+		int[] leftTailX = new int[n], rightTailX = new int[n]; // offset of the last entry from the sub-tree root
+		int[] subtreeHeight = new int[n]; // number of levels in each sub-tree
+		int[] offset = new int[n]; // horizontal offset of each node from it's parent
+
+		// lay out the sub-trees bottom up (children come after their parent in pre-order):
+		for (int i = n - 1; i >= 0; i--)
+		{
+			int left = leftChild[i], right = rightChild[i];
+			int leftHeight = (left < 0) ? 0 : subtreeHeight[left];
+			int rightHeight = (right < 0) ? 0 : subtreeHeight[right];
+
+			// walk down the facing contours together, to find the minimal separation of the two sub-trees:
+			int separation = minimalSeparation;
+			int leftEntry = -1, rightEntry = -1; // deepest entries visited on both facing contours
+			int leftX = 0, rightX = 0; // their offsets from their own sub-tree roots
+			int commonLevels = Math.min(leftHeight, rightHeight);
+			for (int level = 0; level < commonLevels; level++)
+			{
+				if (level == 0)
+				{
+					leftEntry = n + left;
+					rightEntry = right;
+				}
+				else
+				{
+					leftEntry = next[leftEntry];
+					rightEntry = next[rightEntry];
+					leftX += delta[leftEntry];
+					rightX += delta[rightEntry];
+				}
+				separation = Math.max(separation, leftX - rightX + minimalSeparation);
+			}
+			int leftOffset = -(separation / 2);
+			int rightOffset = leftOffset + separation;
+			if (left >= 0)
+				offset[left] = leftOffset;
+			if (right >= 0)
+				offset[right] = rightOffset;
+
+			// left contour: the node, then the left sub-tree's left contour,
+			// then the rest of the right sub-tree's left contour, if it's deeper:
+			int tail = i, tailX = 0;
+			next[i] = -1;
+			if (left >= 0)
+			{
+				next[i] = left;
+				delta[left] = leftOffset;
+				tail = leftTail[left];
+				tailX = leftOffset + leftTailX[left];
+			}
+			if (rightHeight > leftHeight)
+			{
+				int entry = (leftHeight == 0) ? right : next[rightEntry];
+				int entryX = rightOffset + ((leftHeight == 0) ? 0 : rightX + delta[entry]);
+				next[tail] = entry;
+				delta[entry] = entryX - tailX;
+				tail = leftTail[right];
+				tailX = rightOffset + leftTailX[right];
+			}
+			leftTail[i] = tail;
+			leftTailX[i] = tailX;
+
+			// Similarly, right contour: the node, then the right sub-tree's right contour,
+			// then the rest of the left sub-tree's right contour, if it's deeper:
+			tail = n + i;
+			tailX = 0;
+			next[n + i] = -1;
+			if (right >= 0)
+			{
+				next[n + i] = n + right;
+				delta[n + right] = rightOffset;
+				tail = rightTail[right];
+				tailX = rightOffset + rightTailX[right];
+			}
+			if (leftHeight > rightHeight)
+			{
+				int entry = (rightHeight == 0) ? n + left : next[leftEntry];
+				int entryX = leftOffset + ((rightHeight == 0) ? 0 : leftX + delta[entry]);
+				next[tail] = entry;
+				delta[entry] = entryX - tailX;
+				tail = rightTail[left];
+				tailX = leftOffset + rightTailX[left];
+			}
+			rightTail[i] = tail;
+			rightTailX[i] = tailX;
+			subtreeHeight[i] = 1 + Math.max(leftHeight, rightHeight);
+		}
+
+		// absolute positions, top down (offsets accumulate from the root):
+		int[] x = new int[n], y = new int[n], level = new int[n];
+		int minimalX = 0, maximalX = 0;
+		for (int i = 1; i < n; i++)
+		{
+			x[i] = x[parentIndex[i]] + offset[i];
+			level[i] = level[parentIndex[i]] + 1;
+			minimalX = Math.min(minimalX, x[i]);
+			maximalX = Math.max(maximalX, x[i]);
+		}
+		placements = new NodePlacement[n];
+		for (int i = 0; i < n; i++)
+		{
+			x[i] -= minimalX;
+			y[i] = level[i] * verticalStep;
+			placements[i] = new NodePlacement<T>(data[i], (i == 0) ? null : nodes[parentIndex[i]], 
+					leftPointer[i], rightPointer[i], x[i], y[i]);
+			coordinatesTable.put(nodes[i], placements[i]);
+		}
+		this.x = x;
+		this.y = y;
+		levelCount = subtreeHeight[0];
+		width = maximalX - minimalX + nodeDimension;
+		height = (levelCount - 1) * verticalStep + nodeDimension;
+		
+		// density of each level, gathered along the layout itself (without another scan of the tree):
+		levelDensity = new int[levelCount][DENSITY_COLUMNS];
+		for (int i = 0; i < n; i++)
+			levelDensity[level[i]][(int) ((long) x[i] * DENSITY_COLUMNS / width)]++;
+		calculateSubtreeSummaries(n);
+	}
+
+	/* Calculate the bounding boxes, size & key range of all the sub-trees, bottom up */
+	private void calculateSubtreeSummaries(int n)
+	{
+		nodesMinX = new int[n];
+		nodesMaxX = new int[n];
+		nodesMaxY = new int[n];
+		boundsMinX = new int[n];
+		boundsMaxX = new int[n];
+		boundsMinY = new int[n];
+		boundsMaxY = new int[n];
+		subtreeSize = new int[n];
+		minimumIndex = new int[n];
+		maximumIndex = new int[n];
+		for (int i = n - 1; i >= 0; i--)
+		{
+			// the node itself:
+			nodesMinX[i] = boundsMinX[i] = x[i];
+			nodesMaxX[i] = boundsMaxX[i] = x[i] + nodeDimension;
+			boundsMinY[i] = y[i];
+			nodesMaxY[i] = boundsMaxY[i] = y[i] + nodeDimension;
+			subtreeSize[i] = 1;
+			minimumIndex[i] = maximumIndex[i] = i;
+
+			// it's wires, which lead up to an ancestor (the predecessor or successor):
+			if (leftChild[i] < 0 && leftPointer[i] != null)
+				includeInBounds(i, coordinatesTable.get(leftPointer[i]));
+			if (rightChild[i] < 0 && rightPointer[i] != null)
+				includeInBounds(i, coordinatesTable.get(rightPointer[i]));
+
+			// and it's sub-trees:
+			for (int child : new int[] {leftChild[i], rightChild[i]})
+			{
+				if (child < 0)
+					continue;
+				nodesMinX[i] = Math.min(nodesMinX[i], nodesMinX[child]);
+				nodesMaxX[i] = Math.max(nodesMaxX[i], nodesMaxX[child]);
+				nodesMaxY[i] = Math.max(nodesMaxY[i], nodesMaxY[child]);
+				boundsMinX[i] = Math.min(boundsMinX[i], boundsMinX[child]);
+				boundsMaxX[i] = Math.max(boundsMaxX[i], boundsMaxX[child]);
+				boundsMinY[i] = Math.min(boundsMinY[i], boundsMinY[child]);
+				boundsMaxY[i] = Math.max(boundsMaxY[i], boundsMaxY[child]);
+				subtreeSize[i] += subtreeSize[child];
+			}
+			if (leftChild[i] >= 0)
+				minimumIndex[i] = minimumIndex[leftChild[i]];
+			if (rightChild[i] >= 0)
+				maximumIndex[i] = maximumIndex[rightChild[i]];
+		}
+	}
+
+	/* utility method: extend the bounds of a node to include another node's frame */
+	private void includeInBounds(int i, Point point)
+	{
+		boundsMinX[i] = Math.min(boundsMinX[i], point.x);
+		boundsMaxX[i] = Math.max(boundsMaxX[i], point.x + nodeDimension);
+		boundsMinY[i] = Math.min(boundsMinY[i], point.y);
+		boundsMaxY[i] = Math.max(boundsMaxY[i], point.y + nodeDimension);
+	}
+
+	/* 
+	 * Compare the placements of all nodes to the previous layout, 
+	 * and list the areas of each node whose drawing changed, with it's arcs & wires, in both layouts.
+	 * Returns null if there are too many changes to list.
+	 */
+	private List<Rectangle> findChangedAreas(HashMap<BSTNode<T>, NodePlacement<T>> previousTable)
+	{
+		List<Rectangle> areas = new ArrayList<Rectangle>();
+		
+		// nodes which moved, appeared or got new neighbors:
+		for (Map.Entry<BSTNode<T>, NodePlacement<T>> entry : coordinatesTable.entrySet())
+		{
+			NodePlacement<T> placement = entry.getValue();
+			NodePlacement<T> previous = previousTable.get(entry.getKey());
+			if (placement.isDrawnAs(previous))
+				continue;
+			areas.add(drawingArea(placement, coordinatesTable));
+			if (previous != null)
+				areas.add(drawingArea(previous, previousTable));
+			if (areas.size() > MAX_CHANGED_AREAS)
+				return null;
+		}
+		
+		// nodes which disappeared:
+		for (Map.Entry<BSTNode<T>, NodePlacement<T>> entry : previousTable.entrySet())
+		{
+			if (coordinatesTable.containsKey(entry.getKey()))
+				continue;
+			areas.add(drawingArea(entry.getValue(), previousTable));
+			if (areas.size() > MAX_CHANGED_AREAS)
+				return null;
+		}
+		return areas;
+	}
+	
+	/* 
+	 * utility method: the area a node is drawn in, with the arcs & wires to it's neighbors 
+	 * (the node's text might be wider than it's frame, so a node's width is added on both sides). 
+	 */
+	private Rectangle drawingArea(NodePlacement<T> placement, HashMap<BSTNode<T>, NodePlacement<T>> table)
+	{
+		Rectangle area = new Rectangle(placement.x, placement.y, nodeDimension, nodeDimension);
+		includeNeighbor(area, placement.parent, table);
+		includeNeighbor(area, placement.left, table);
+		includeNeighbor(area, placement.right, table);
+		area.grow(nodeDimension, 1);
+		return area;
+	}
+	
+	/* utility method: extend an area to include a neighbor node's frame */
+	private void includeNeighbor(Rectangle area, BSTNode<T> neighbor, HashMap<BSTNode<T>, NodePlacement<T>> table)
+	{
+		Point point = (neighbor == null) ? null : table.get(neighbor);
+		if (point != null)
+			area.add(new Rectangle(point.x, point.y, nodeDimension, nodeDimension));
+	}
+
+	/**
+	 * Determine if anything of a sub-tree (a node, an arc or a wire) might be inside an area.
+	 * @param i - index of the sub-tree root.
+	 * @param area - the area, in layout coordinates.
+	 * @return false if the whole sub-tree is outside the area.
+	 */
+	boolean subtreeIntersects(int i, Rectangle area)
+	{
+		return boundsMinX[i] < area.x + area.width && boundsMaxX[i] > area.x 
+				&& boundsMinY[i] < area.y + area.height && boundsMaxY[i] > area.y;
+	}
+
+	/**
+	 * Get the bounding box of the nodes of a sub-tree (excluding the wires which lead out of it).
+	 * @param i - index of the sub-tree root.
+	 * @return the bounding box, in layout coordinates.
+	 */
+	Rectangle getSubtreeBounds(int i)
+	{
+		return new Rectangle(nodesMinX[i], y[i], nodesMaxX[i] - nodesMinX[i], nodesMaxY[i] - y[i]);
+	}
+
+	// result getters:
+	HashMap<BSTNode<T>, NodePlacement<T>> getCoordinatesTable() {return coordinatesTable;}
+	List<Rectangle> getChangedAreas() {return changedAreas;}
+	int[][] getLevelDensity() {return levelDensity;}
+	int getCapturedCount() {return (nodes == null) ? 0 : nodes.length;}
+	int getNodeCount() {return (placements == null) ? 0 : placements.length;}
+	NodePlacement<T> getPlacement(int i) {return placements[i];}
+	int getLeftChild(int i) {return leftChild[i];}
+	int getRightChild(int i) {return rightChild[i];}
+	int getSubtreeSize(int i) {return subtreeSize[i];}
+	T getSubtreeMinimum(int i) {return data[minimumIndex[i]];}
+	T getSubtreeMaximum(int i) {return data[maximumIndex[i]];}
+	int getWidth() {return width;}
+	int getHeight() {return height;}
+	int getLevelCount() {return levelCount;}
+	int getVerticalStep() {return verticalStep;}
+	int getNodeDimension() {return nodeDimension;}
+} // end of class
@@ -5,16 +5,22 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 
 import javax.swing.JPanel;
+import javax.swing.SwingWorker;
 
 import binaryTree.BSTNode;
+import wiredBinarySearchTree.TreeListener;
 import wiredBinarySearchTree.WiredBST;
 
 /**
@@ -28,12 +34,17 @@ import wiredBinarySearchTree.WiredBST;
  * this took allot of time and effort, allot of failed attempts at first, 
  * hundreds of code lines deleted and re-implemented, and eventually,
  * a pretty good result, though a few more optimization would be made if the time was unlimitied. 
+ * The printed tree is cached in square image tiles, so scrolling only copies the cached tiles,
+ * and a change of the tree prints again only the tiles in the areas where nodes were changed.
+ * The layout of a large tree is calculated on a background thread (only the capture of the tree's shape is done
+ * on the Event Dispatch Thread, while holding the tree lock), and the last completed layout is painted meanwhile,
+ * so painting never waits for a layout, and a background import isn't stopped while the tree is laid out.
  *        ,--,
  * enjoy (^__^) 
  */
 
 @SuppressWarnings("serial")
-public class TreePrinter <T extends Comparable<T>> extends JPanel 
+public class TreePrinter <T extends Comparable<T>> extends JPanel implements TreeListener<T>
 {
 	//Instance variables
 	private WiredBST<T> tree; 
@@ -45,15 +56,45 @@ public class TreePrinter <T extends Comparable<T>> extends JPanel
 	private static Color darkGreen = new Color(0, 180, 0);
 	
 	// coordinates positions variables: 
-	private int treeHeight;
 	private int nodeDimension;
-	private int globalHorizontalOffset;
-	private HashMap<BSTNode<T>, Point> coordinatesTable;
+	private HashMap<BSTNode<T>, TreeLayout.NodePlacement<T>> coordinatesTable;
+	private TreeLayout<T> layout; // the last completed layout, which is the one painted
+	private static final int MARGIN = 20; // empty space around the tree
+	private static final int HORIZONTAL_GAP_RATIO = 4; // the horizontal gap between nodes is a quarter node
+	
+	// level of detail variables (sizes are in screen pixels, after zooming): 
+	private double zoom = 1.0;
+	private boolean printNodesData; // false if the nodes are too small for their text
+	private static final int MIN_READABLE_NODE_SIZE = 40; // smaller nodes are printed without text
+	private static final int SUMMARY_SIZE = 150; // when nodes are unreadable, narrower sub-trees are printed as a summary
+	private static Color summaryColor = new Color(200, 235, 200);
+	
+	// layout cache: the coordinates are kept between paints, and calculated again only after the tree changed: 
+	private volatile boolean layoutValid; // false if the layout must be calculated again (set by the mutating thread)
+	private LayoutWorker pendingLayout; // a layout calculated in the background, or null
+	private int layoutVersion; // counts the layouts, reported to "layoutVersion" property listeners
+	private static final int BACKGROUND_LAYOUT_SIZE = 4096; // larger trees are laid out in the background
 	private final int NUM_OF_LINES_IN_EACH_NODE = 4; // key, parent, left & right 
 	
+	// tiles cache: the most recently used tiles of the printed tree, by their (column, row) key:
+	private static final int TILE_SIZE = 256; // in screen pixels
+	private static final int MAX_TILES = 128;
+	@SuppressWarnings("serial")
+	private final LinkedHashMap<Long, BufferedImage> tilesCache = new LinkedHashMap<Long, BufferedImage>(MAX_TILES, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest)
+		{
+			return size() > MAX_TILES;
+		}
+	};
+	
 	// flag to control display of wire pointers:
 	private boolean displayWires;
 	
+	// lock held while the tree is read, since it might be mutated by a background import: 
+	private Object treeLock;
+	
 	/**
 	 * Constructor 
 	 * @param tree - the wired binary search tree to display. 
@@ -73,12 +114,19 @@ public class TreePrinter <T extends Comparable<T>> extends JPanel
 
 		// Set dimensions of the nodes according to font capacity:
 		nodeDimension = (fontHeight * this.NUM_OF_LINES_IN_EACH_NODE)+10;
+		layout = newLayout();
 		
-		// Set large enough size to enable scrolling:  
+		// Set initial size, until the size of the tree layout is known:  
 		setPreferredSize(this.getPreferedSize());
 		
 		// Set initial display mode flag for wires: 
 		displayWires = false;
+		treeLock = new Object();
+		
+		// listen to changes of the tree, so the layout is calculated again only when needed:
+		coordinatesTable = new HashMap<BSTNode<T>, TreeLayout.NodePlacement<T>>();
+		layoutValid = false;
+		tree.addTreeListener(this);
 	}
 	
 	/**
@@ -87,10 +135,22 @@ public class TreePrinter <T extends Comparable<T>> extends JPanel
 	 */
 	public void setTree(WiredBST<T> tree)
 	{
+		this.tree.removeTreeListener(this);
 		this.tree = tree;
+		tree.addTreeListener(this);
+		layoutValid = false;
 	}
 
 
+	/**
+	 * setTreeLock: set the lock which is shared with the threads that mutate the tree.
+	 * @param treeLock - the lock object.
+	 */
+	public void setTreeLock(Object treeLock)
+	{
+		this.treeLock = treeLock;
+	}
+
 	/**
 	 *  paintComponent: 
 	 *  Override generic paint method to call concrete drawing one.
@@ -104,29 +164,128 @@ public class TreePrinter <T extends Comparable<T>> extends JPanel
 		// clear old printout: 
 		g.clearRect(0, 0, getWidth(), getHeight());
 		
-		// invoke customized painting method to do the real painting job:
-		printTree(g);
+		// start a new layout if the tree changed (the tree must not change while it's captured):
+		synchronized (treeLock)
+		{
+			if (!layoutValid && pendingLayout == null)
+				calculateCoordinates();
+		}
+		
+		// the layout holds a copy of everything printed, so the painting itself doesn't read the tree:
+		if (layout.getNodeCount() == 0)
+		{
+			if (pendingLayout == null)
+				printTree(g);
+			return;
+		}
+		
+		// copy the tiles which cover the area to paint, printing only the missing ones: 
+		Rectangle paintArea = g.getClipBounds();
+		if (paintArea == null)
+			paintArea = new Rectangle(0, 0, getWidth(), getHeight());
+		int lastColumn = (paintArea.x + paintArea.width - 1) / TILE_SIZE;
+		int lastRow = (paintArea.y + paintArea.height - 1) / TILE_SIZE;
+		for (int row = paintArea.y / TILE_SIZE; row <= lastRow; row++)
+			for (int column = paintArea.x / TILE_SIZE; column <= lastColumn; column++)
+				g.drawImage(getTile(column, row, g), column * TILE_SIZE, row * TILE_SIZE, null);
+	}
+	
+	/* Get a tile from the cache, or print it if it's missing */
+	private BufferedImage getTile(int column, int row, Graphics g)
+	{
+		Long key = ((long) column << 32) | (row & 0xffffffffL);
+		BufferedImage tile = tilesCache.get(key);
+		if (tile == null)
+		{
+			tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+			Graphics2D tileGraphics = tile.createGraphics();
+			tileGraphics.setRenderingHints(((Graphics2D) g).getRenderingHints());
+			tileGraphics.setColor(getBackground());
+			tileGraphics.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+			tileGraphics.translate(-column * TILE_SIZE, -row * TILE_SIZE);
+			tileGraphics.setClip(column * TILE_SIZE, row * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+			tileGraphics.setFont(getFont());
+			printTree(tileGraphics);
+			tileGraphics.dispose();
+			tilesCache.put(key, tile);
+		}
+		return tile;
+	}
+	
+	/* Remove the cached tiles which intersect the given areas (in layout coordinates), or all of them if null */
+	private void invalidateTiles(List<Rectangle> changedAreas)
+	{
+		// at low zoom the sub-trees summaries might change anywhere, so all tiles are printed again:
+		if (changedAreas == null || nodeDimension * zoom < MIN_READABLE_NODE_SIZE)
+		{
+			tilesCache.clear();
+			return;
+		}
+		Iterator<Long> keys = tilesCache.keySet().iterator();
+		while (keys.hasNext())
+		{
+			long key = keys.next();
+			Rectangle tileArea = new Rectangle((int) (key >> 32) * TILE_SIZE, (int) key * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+			for (Rectangle area : changedAreas)
+			{
+				Rectangle screenArea = new Rectangle((int) Math.floor((area.x + MARGIN) * zoom), (int) Math.floor((area.y + MARGIN) * zoom), 
+						(int) Math.ceil(area.width * zoom) + 2, (int) Math.ceil(area.height * zoom) + 2);
+				if (screenArea.intersects(tileArea))
+				{
+					keys.remove();
+					break;
+				}
+			}
+		}
 	}
 	
 	/**
 	 * printTree: 
-	 * Responsible for the painting of tree.
+	 * Responsible for the painting of tree, as it was in the last completed layout.
 	 * @param g Graphics object used to draw nodes and arcs. 
 	 */
 	public void printTree(Graphics g)
 	{
 		// print tree only if it's not empty of course: 
-		if (tree.getRoot() != null)
+		if (layout.getNodeCount() > 0)
 		{
-			// Set a table that has an entry for each node with it's coordinates: 
-			calculateCoordinates(); 
+			// zoom the layout, and leave a margin around it: 
+			Graphics2D layoutGraphics = (Graphics2D) g.create();
+			layoutGraphics.scale(zoom, zoom);
+			layoutGraphics.translate(MARGIN, MARGIN);
+			Rectangle visibleArea = layoutGraphics.getClipBounds();
+			if (visibleArea == null)
+				visibleArea = new Rectangle(0, 0, layout.getWidth(), layout.getHeight());
+			visibleArea.grow(nodeDimension, 0); // the text of a node might be wider than it's frame
+			printNodesData = (nodeDimension * zoom >= MIN_READABLE_NODE_SIZE);
 			
-			// Iterate the table and print each node's shape, data & arc according to it's position:
-			for (Map.Entry<BSTNode<T>, Point> entry : coordinatesTable.entrySet())
+			// Scan the tree top down, and print each node's shape, data & arc according to it's position,
+			// skipping sub-trees which are outside the visible area: 
+			int[] stack = new int[layout.getLevelCount() + 1];
+			int stackSize = 0;
+			stack[stackSize++] = 0; // the root
+			while (stackSize > 0)
 			{
-				printNode(entry.getKey() ,entry.getValue(), g); // print node frame & data 
-				printNodeArcs(entry.getKey() ,entry.getValue(), g); // print arc from node to children
-			}	
+				int i = stack[--stackSize];
+				if (!layout.subtreeIntersects(i, visibleArea))
+					continue;
+				
+				// at low zoom, a narrow sub-tree is printed as a single summary glyph: 
+				if (!printNodesData && layout.getSubtreeSize(i) > 1 && layout.getSubtreeBounds(i).width * zoom < SUMMARY_SIZE)
+				{
+					printSubtreeSummary(i, layoutGraphics, g);
+					continue;
+				}
+				
+				TreeLayout.NodePlacement<T> placement = layout.getPlacement(i);
+				printNode(placement, layoutGraphics); // print node frame & data 
+				printNodeArcs(i, placement, layoutGraphics); // print arc from node to children
+				if (layout.getRightChild(i) >= 0)
+					stack[stackSize++] = layout.getRightChild(i);
+				if (layout.getLeftChild(i) >= 0)
+					stack[stackSize++] = layout.getLeftChild(i);
+			}
+			layoutGraphics.dispose();
 		}
 
 		// if tree is empty just print appropriate message and return:
@@ -141,94 +300,195 @@ public class TreePrinter <T extends Comparable<T>> extends JPanel
 		}
 	}
 	
+	/* a new empty layout, with the printer's node sizes */
+	private TreeLayout<T> newLayout()
+	{
+		return new TreeLayout<T>(nodeDimension, nodeDimension / HORIZONTAL_GAP_RATIO, (int)(1.250 * nodeDimension));
+	}
+	
 	/**
-	 * Save local logical position of each node according to a base position of root.
-	 * Then shift node left by offset so that tree would be displayed starting at x = 0. 
+	 * Calculate the compact (tidy) layout of the whole tree in linear time: the tree is captured right away
+	 * (the caller holds the tree lock), and a small tree is laid out right away as well, 
+	 * while a large tree is laid out on a background thread, and installed once it's done.
 	 */
 	private void calculateCoordinates()
 	{
-		// Initialize coordinates utility data variables:  
-		coordinatesTable = new HashMap<BSTNode<T>, Point>();
-		treeHeight = tree.getMaxHeight(tree.getRoot());
-		int levelOffset = (int)(Math.pow(2, treeHeight));
-		int horizontalRootOffset = (nodeDimension) * (levelOffset-1);
-		int verticalRootOffset = 0;
-		Point parentPoint, rootPoint;
-		rootPoint = new Point(horizontalRootOffset, verticalRootOffset);
-		int leftMostPoint = rootPoint.x;
-		int x = rootPoint.x, y = rootPoint.y; // 1-d coordinates
-		int sign; // positive/negative
+		TreeLayout<T> nextLayout = newLayout();
+		nextLayout.capture(tree.getRoot());
+		layoutValid = true;
+		if (nextLayout.getCapturedCount() <= BACKGROUND_LAYOUT_SIZE)
+		{
+			nextLayout.layout(layout);
+			installLayout(nextLayout);
+			return;
+		}
+		pendingLayout = new LayoutWorker(nextLayout, layout);
+		pendingLayout.execute();
+	}
+	
+	/* 
+	 * Paint a completed layout from now on, print again the tiles where it changed, 
+	 * and resize the panel to the layout, so it could be scrolled exactly over the tree. 
+	 */
+	private void installLayout(TreeLayout<T> completedLayout)
+	{
+		layout = completedLayout;
+		coordinatesTable = layout.getCoordinatesTable();
+		invalidateTiles(layout.getChangedAreas());
+		updatePreferredSize();
+		firePropertyChange("layoutVersion", layoutVersion, ++layoutVersion);
+	}
+	
+	/** LayoutWorker - lays out a captured tree in the background, and installs the layout when it's done */
+	private class LayoutWorker extends SwingWorker<TreeLayout<T>, Void>
+	{
+		private final TreeLayout<T> nextLayout, previousLayout;
 		
-		// Initialize variables for BFS scan of tree: 
-		int currentLevel = -1;
-		levelOffset = 2 * levelOffset;  
-		BSTNode<T> currentNode, parent;
-		BSTNode<T> sentinelNode = new BSTNode<T>(null);
-		Queue<BSTNode<T>> queue = new LinkedList<>();
-		queue.add(tree.getRoot());
+		LayoutWorker(TreeLayout<T> nextLayout, TreeLayout<T> previousLayout)
+		{
+			this.nextLayout = nextLayout;
+			this.previousLayout = previousLayout;
+		}
 		
-		// Scan each level in the tree from top to bottom: 
-		while (!queue.isEmpty())
+		/** Background thread: the layout reads only the captured copy of the tree */
+		@Override
+		protected TreeLayout<T> doInBackground()
 		{
-			currentLevel++;
-			queue.add(sentinelNode); // sentinel to differ between the different levels 
-			currentNode = queue.remove();
-			
-			levelOffset = levelOffset / 2;
-			
-			// scan each node in current level, left to right: 
-			while (currentNode != sentinelNode)
+			nextLayout.layout(previousLayout);
+			return nextLayout;
+		}
+		
+		/** Event Dispatch Thread: paint the new layout (which starts another one if the tree changed meanwhile) */
+		@Override
+		protected void done()
+		{
+			pendingLayout = null;
+			try
 			{
-				// if current node's pointers are not threads, add children to the scan queue:
-				if (!currentNode.isPointerWired(currentNode.getLeft()))
-					queue.add(currentNode.getLeft());
-				if (!currentNode.isPointerWired(currentNode.getRight()))
-					queue.add(currentNode.getRight());
-				
-				// now do coordinates actual calculation work: 
-				if (currentLevel == 0)
-					coordinatesTable.put(currentNode, rootPoint);
-				else 
-				{
-					parent = currentNode.getParent();
-					parentPoint = coordinatesTable.get(parent);
-					sign = ((currentNode == parent.getRight()) ? 1 : -1); 
-					x = parentPoint.x + (sign * levelOffset * nodeDimension);
-					y = parentPoint.y + (int)(1.250 * nodeDimension);
-					coordinatesTable.put(currentNode, new Point(x,y));
-				}
-				if (x < leftMostPoint)
-					leftMostPoint = x;
-				
-				// fetch next node: 
-				currentNode = queue.remove();
-			} 
-		} 
-		// save left most point in-order to shift left all points later by it's distance from x = 0:
-		this.globalHorizontalOffset = leftMostPoint;
+				installLayout(get());
+			}
+			catch (Exception exception)
+			{
+				exception.printStackTrace();
+				layoutValid = false;
+			}
+			repaint();
+		}
+	}
+	
+	/* set the panel size to the zoomed layout, with a margin around it */
+	private void updatePreferredSize()
+	{
+		Dimension size = new Dimension((int) Math.ceil((layout.getWidth() + 2 * MARGIN) * zoom), 
+				(int) Math.ceil((layout.getHeight() + 2 * MARGIN) * zoom));
+		if (!size.equals(getPreferredSize()))
+		{
+			setPreferredSize(size);
+			revalidate();
+		}
 	}
 	
+	/**
+	 * Paint a whole sub-tree as one summary glyph: a frame around it's nodes, 
+	 * with the number of nodes and their key range.
+	 * @param i - index of the sub-tree root in the layout.
+	 * @param layoutGraphics - Graphics object in layout coordinates (zoomed). 
+	 * @param screenGraphics - Graphics object in screen coordinates, for readable text.
+	 */
+	private void printSubtreeSummary(int i, Graphics2D layoutGraphics, Graphics screenGraphics)
+	{
+		Rectangle bounds = layout.getSubtreeBounds(i);
+		layoutGraphics.setColor(summaryColor);
+		layoutGraphics.fillRoundRect(bounds.x, bounds.y, bounds.width, bounds.height, nodeDimension, nodeDimension);
+		layoutGraphics.setColor(darkGreen);
+		layoutGraphics.drawRoundRect(bounds.x, bounds.y, bounds.width, bounds.height, nodeDimension, nodeDimension);
+		
+		// print the text without zooming (cut to the glyph), if there is enough room for it: 
+		int x = (int) ((bounds.x + MARGIN) * zoom);
+		int y = (int) ((bounds.y + MARGIN) * zoom);
+		if (bounds.height * zoom >= 2 * fontHeight)
+		{
+			Graphics textGraphics = screenGraphics.create();
+			textGraphics.clipRect(x, y, (int) (bounds.width * zoom), (int) (bounds.height * zoom));
+			textGraphics.setColor(Color.BLACK);
+			textGraphics.setFont(defaultFont);
+			textGraphics.drawString(layout.getSubtreeSize(i) + " nodes", x + 2, y + fontHeight);
+			textGraphics.drawString(layout.getSubtreeMinimum(i) + ".." + layout.getSubtreeMaximum(i), 
+					x + 2, y + 2 * fontHeight);
+			textGraphics.dispose();
+		}
+	}
 	
 	/**
-	 * Paint an individual node frame and data. 
-	 * @param node - the current node to be printed.
-	 * @param coordinates - the base coordinates positions for this node.
+	 * Set the zoom factor of the display.
+	 * @param zoom - the zoom factor, 1.0 is the natural size.
+	 */
+	public void setZoom(double zoom)
+	{
+		this.zoom = zoom;
+		tilesCache.clear();
+		updatePreferredSize();
+		repaint();
+	}
+	
+	/** @return the current zoom factor */
+	public double getZoom()
+	{
+		return zoom;
+	}
+	
+	/**
+	 * Get the density of the tree levels, as calculated by the last completed layout.
+	 * @return number of nodes in each level (rows) and horizontal slice of the tree (columns).
+	 */
+	public int[][] getLevelDensity()
+	{
+		return layout.getLevelDensity();
+	}
+	
+	/** Tree notification: a leaf was inserted, the layout must be calculated again */
+	@Override
+	public void nodeInserted(BSTNode<T> node)
+	{
+		layoutValid = false;
+	}
+	
+	/** Tree notification: a node was removed, the layout must be calculated again */
+	@Override
+	public void nodeRemoved(BSTNode<T> node)
+	{
+		layoutValid = false;
+	}
+	
+	/** Tree notification: the whole tree was replaced */
+	@Override
+	public void treeRebuilt()
+	{
+		layoutValid = false;
+	}
+	
+	
+	/**
+	 * Paint an individual node frame and data, as they were captured by the layout. 
+	 * @param placement - the position of the node to be printed, with it's data & neighbors.
 	 * @param g - the Graphic object which could draw the node. 
 	 */
-	private void printNode(BSTNode<T> node, Point coordinates, Graphics g)
+	private void printNode(TreeLayout.NodePlacement<T> placement, Graphics g)
 	{		
 		g.setColor(Color.BLACK);
 		
-		// prepare data for printout: 
-		int x = coordinates.x - globalHorizontalOffset;
-		int y = coordinates.y;
-		String key = node.getData().toString();
-		String parent = ((node.getParent() != null) ? node.getParent().getData().toString() : "NIL");
-		String left = ((node.getLeft() != null) ? node.getLeft().getData().toString() : "NIL");
-		String right = ((node.getRight() != null) ? node.getRight().getData().toString() : "NIL");
-		
-		//print node's skeleton (frame):
+		// print node's skeleton (frame), only the frame if the node is too small for text:
+		int x = placement.x;
+		int y = placement.y;
 		g.drawRoundRect(x, y, nodeDimension, nodeDimension, 45, 45);
+		if (!printNodesData)
+			return;
+		
+		// prepare data for printout (the neighbors data is taken from their own placements): 
+		String key = placement.data.toString();
+		String parent = dataOf(placement.parent);
+		String left = dataOf(placement.left);
+		String right = dataOf(placement.right);
 		
 		// set offset for node's data inside the frame: 
 		int horizontalOffset = fontHeight/2+1;
@@ -246,22 +506,28 @@ public class TreePrinter <T extends Comparable<T>> extends JPanel
 	}
 	
 
+	/* the text of a neighbor's data, as it was captured by the layout, or NIL */
+	private String dataOf(BSTNode<T> neighbor)
+	{
+		return (neighbor == null) ? "NIL" : coordinatesTable.get(neighbor).data.toString();
+	}
+
 	/**
 	 * Paint an individual node's arcs to his children. 
 	 * If the boolean flag was set on, also non-null wires would be painted,
 	 * i.e, all wires other than minimum's left & maximum's right. 
 	 * The wires are painted in red to distinguish them from the real pointers, 
 	 * which are painted in green. 
-	 * @param node - the current node to be printed.
+	 * @param i - index of the node in the layout.
 	 * @param coordinates - the base coordinates positions for this node.
 	 * @param g - the Graphic object which could draw the node. 
 	 */
-	public void printNodeArcs(BSTNode<T> node, Point coordinates, Graphics g)
+	public void printNodeArcs(int i, TreeLayout.NodePlacement<T> coordinates, Graphics g)
 	{
 		g.setColor(darkGreen);
 		
 		// get absolute position of current point:
-		int x = coordinates.x - globalHorizontalOffset;
+		int x = coordinates.x;
 		int y = coordinates.y;
 		
 		// calculate the coordinates of it's ports to left and right pointers:
@@ -270,16 +536,16 @@ public class TreePrinter <T extends Comparable<T>> extends JPanel
 		int nodeYPort = y + nodeDimension -(int)(nodeDimension * 0.125); // approximately in 45 degrees
 				
 		// print arc to left child (or wire): 
-		if (!node.isPointerWired(node.getLeft())) // if it's a real left child: 
+		if (layout.getLeftChild(i) >= 0) // if it's a real left child: 
 		{
-			Point left = coordinatesTable.get(node.getLeft());
-			int leftMiddleUpperPointX = left.x + (nodeDimension/2) - globalHorizontalOffset;
+			Point left = layout.getPlacement(layout.getLeftChild(i));
+			int leftMiddleUpperPointX = left.x + (nodeDimension/2);
 			g.drawLine(nodeLeftPortXCoordinate, nodeYPort, leftMiddleUpperPointX, left.y);
 		}
-		else if (displayWires && node.getLeft() != null) // if it's a left wire: 
+		else if (displayWires && coordinates.left != null) // if it's a left wire: 
 		{
-			Point predecessor = coordinatesTable.get(node.getLeft());
-			int predecessorXPort = predecessor.x + (nodeDimension/2) - globalHorizontalOffset;
+			Point predecessor = coordinatesTable.get(coordinates.left);
+			int predecessorXPort = predecessor.x + (nodeDimension/2);
 			int predecessorYPort = predecessor.y + nodeDimension;
 			Point connectionPoint = new Point(predecessorXPort,  y + (int)(nodeDimension * 0.125));
 			
@@ -291,16 +557,16 @@ public class TreePrinter <T extends Comparable<T>> extends JPanel
 		}
 		
 		// Similarly, deal with right pointer: 
-		if (!node.isPointerWired(node.getRight()))
+		if (layout.getRightChild(i) >= 0)
 		{
-			Point right = this.coordinatesTable.get(node.getRight());
-			int rightMiddleUpperPointX = right.x + (this.nodeDimension/2) - globalHorizontalOffset;
+			Point right = layout.getPlacement(layout.getRightChild(i));
+			int rightMiddleUpperPointX = right.x + (this.nodeDimension/2);
 			g.drawLine(nodeRightPortXCoordinate, nodeYPort, rightMiddleUpperPointX, right.y);
 		}
-		else if (displayWires && node.getRight() != null)
+		else if (displayWires && coordinates.right != null)
 		{
-			Point successor = coordinatesTable.get(node.getRight());
-			int successorXPort = successor.x + (nodeDimension/2) - globalHorizontalOffset;
+			Point successor = coordinatesTable.get(coordinates.right);
+			int successorXPort = successor.x + (nodeDimension/2);
 			int successorYPort = successor.y + nodeDimension;
 			Point connectionPoint = new Point(successorXPort,  y + (int)(nodeDimension * 0.125));
 			
@@ -312,10 +578,10 @@ public class TreePrinter <T extends Comparable<T>> extends JPanel
 		}
 	}
 	
-	/* set large enough size to enable scrolling vertically and horizon'. */
+	/* set initial size, large enough for the empty tree message. */
 	private Dimension getPreferedSize()
 	{
-		return new Dimension(8192,8192);
+		return new Dimension(800,400);
 	}
 	
 	/**
@@ -325,5 +591,6 @@ public class TreePrinter <T extends Comparable<T>> extends JPanel
 	public void setDisplayWires(boolean flag)
 	{
 		displayWires = flag;
+		tilesCache.clear();
 	}
 }// end of class
@@ -0,0 +1,18 @@
+package wiredBinarySearchTree;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * @author Chanan Welt
+ * 
+ * ElementCodec - converts the elements saved in the tree to and from their binary form,
+ * so that a tree could be saved to a snapshot file and loaded back.
+ * @param <T> - the data type saved in the tree.
+ */
+public interface ElementCodec<T>
+{
+	public void write(DataOutput output, T element) throws IOException;
+	public T read(DataInput input) throws IOException;
+}
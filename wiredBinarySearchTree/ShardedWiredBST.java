@@ -0,0 +1,517 @@
+package wiredBinarySearchTree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import binaryTree.BSTNode;
+
+/**
+ * @author Chanan Welt
+ *
+ * ShardedWiredBST - a forest of wired BSTs, each holding one range of the keys (a shard),
+ * so operations on different shards could run in parallel on several threads.
+ * Each shard has it's own read/write lock, and the shards table is guarded by another read/write lock:
+ * inserts, deletes & lookups hold the table lock for reading, and lock only the shard of their key,
+ * while splitting or merging shards holds the table lock for writing, so it's done alone.
+ * A shard which grows beyond the split threshold is split in two halves, and a shard which shrinks
+ * is merged with a small neighbor; both are bulk built from the sorted elements in linear time.
+ * The minimum, maximum & median are global (over all shards), and in-order iteration continues
+ * from the end of one shard to the minimum of the next one.
+ * @param <T> - the data type saved in the trees.
+ */
+public class ShardedWiredBST<T extends Comparable<T>> implements Iterable<T>
+{
+	// Constants
+	private static final int DEFAULT_SPLIT_THRESHOLD = 1 << 16; // elements in a shard before it's split
+
+	/* a single shard: the tree of one key range, with it's lock */
+	private static class Shard<T extends Comparable<T>>
+	{
+		final WiredBST<T> tree;
+		final T lowerBound; // smallest key which belongs to this shard (null for the first shard)
+		final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+		volatile int size; // number of elements, readable without the lock (as a hint)
+		volatile int version; // changed by each mutation (under the write lock), so iterators know if their node is still valid
+
+		Shard(WiredBST<T> tree, T lowerBound)
+		{
+			this.tree = tree;
+			this.lowerBound = lowerBound;
+			this.size = tree.size();
+		}
+	}
+
+	// Instance variables
+	private final ReentrantReadWriteLock shardsLock = new ReentrantReadWriteLock(); // guards the shards table
+	private final ArrayList<Shard<T>> shards = new ArrayList<Shard<T>>(); // ordered by key ranges
+	private final int splitThreshold;
+	private int layoutVersion; // changed by each split or merge
+
+	/** Constructor 1 - default version.
+	 *  Construct an empty forest of one shard, which is split as it grows.
+	 */
+	public ShardedWiredBST()
+	{
+		this(new ArrayList<T>(), DEFAULT_SPLIT_THRESHOLD);
+	}
+
+	/** Constructor 2 - customized version.
+	 *  Construct an empty forest which is partitioned by the given keys to begin with.
+	 *  @param boundaries - the lowest key of each shard but the first, in ascending order.
+	 *  @param splitThreshold - the number of elements in a shard before it's split.
+	 */
+	public ShardedWiredBST(List<T> boundaries, int splitThreshold)
+	{
+		if (splitThreshold < 4)
+			throw new IllegalArgumentException("Invalid shard split threshold: " + splitThreshold);
+		this.splitThreshold = splitThreshold;
+		shards.add(new Shard<T>(new WiredBST<T>(), null));
+		for (T boundary : boundaries)
+		{
+			T previous = shards.get(shards.size() - 1).lowerBound;
+			if (previous != null && previous.compareTo(boundary) >= 0)
+				throw new IllegalArgumentException("Shard boundaries must be distinct & in ascending order");
+			shards.add(new Shard<T>(new WiredBST<T>(), boundary));
+		}
+	}
+
+	/**
+	 * Insert a new element into the shard of it's key.
+	 * @param newElement - the element to insert.
+	 * @throws javax.management.openmbean.KeyAlreadyExistsException if the key already exists.
+	 */
+	public void insert(T newElement)
+	{
+		boolean split;
+		shardsLock.readLock().lock();
+		try
+		{
+			Shard<T> shard = shards.get(shardIndexOf(newElement));
+			shard.lock.writeLock().lock();
+			try
+			{
+				shard.tree.insert(newElement);
+				shard.size = shard.tree.size();
+				shard.version++;
+				split = shard.size > splitThreshold;
+			}
+			finally
+			{
+				shard.lock.writeLock().unlock();
+			}
+		}
+		finally
+		{
+			shardsLock.readLock().unlock();
+		}
+		if (split)
+			rebalance();
+	}
+
+	/**
+	 * Delete an element from the shard of it's key.
+	 * @param key - the key to delete.
+	 * @return the element which was deleted, or null if the key does not exist.
+	 */
+	public T delete(T key)
+	{
+		T element = null;
+		boolean merge = false;
+		shardsLock.readLock().lock();
+		try
+		{
+			int index = shardIndexOf(key);
+			Shard<T> shard = shards.get(index);
+			shard.lock.writeLock().lock();
+			try
+			{
+				BSTNode<T> node = shard.tree.delete(key);
+				if (node != null)
+				{
+					element = node.getData();
+					shard.tree.release(node);
+					shard.size = shard.tree.size();
+					shard.version++;
+					merge = isMergeable(index);
+				}
+			}
+			finally
+			{
+				shard.lock.writeLock().unlock();
+			}
+		}
+		finally
+		{
+			shardsLock.readLock().unlock();
+		}
+		if (merge)
+			rebalance();
+		return element;
+	}
+
+	/**
+	 * Search for an element by it's key.
+	 * @param key - the key to search for.
+	 * @return the element in the forest which equals the key, or null if there is none.
+	 */
+	public T search(T key)
+	{
+		shardsLock.readLock().lock();
+		try
+		{
+			Shard<T> shard = shards.get(shardIndexOf(key));
+			shard.lock.readLock().lock();
+			try
+			{
+				BSTNode<T> node = shard.tree.search(shard.tree.getRoot(), key);
+				return (node == null) ? null : node.getData();
+			}
+			finally
+			{
+				shard.lock.readLock().unlock();
+			}
+		}
+		finally
+		{
+			shardsLock.readLock().unlock();
+		}
+	}
+
+	/** @return the smallest element in the forest, or null if it is empty */
+	public T getMinimum()
+	{
+		shardsLock.readLock().lock();
+		try
+		{
+			for (int i = 0; i < shards.size(); i++)
+			{
+				T minimum = firstElement(shards.get(i));
+				if (minimum != null)
+					return minimum;
+			}
+			return null;
+		}
+		finally
+		{
+			shardsLock.readLock().unlock();
+		}
+	}
+
+	/** @return the largest element in the forest, or null if it is empty */
+	public T getMaximum()
+	{
+		shardsLock.readLock().lock();
+		try
+		{
+			for (int i = shards.size() - 1; i >= 0; i--)
+			{
+				Shard<T> shard = shards.get(i);
+				shard.lock.readLock().lock();
+				try
+				{
+					if (shard.tree.getRoot() != null)
+						return shard.tree.getMaximum(shard.tree.getRoot()).getData();
+				}
+				finally
+				{
+					shard.lock.readLock().unlock();
+				}
+			}
+			return null;
+		}
+		finally
+		{
+			shardsLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Get the global (lower) median of all elements in the forest.
+	 * All shards are locked for reading (in their order), so the counts agree with each other.
+	 * @return the median element, or null if the forest is empty.
+	 */
+	public T getMedian()
+	{
+		shardsLock.readLock().lock();
+		int locked = 0;
+		try
+		{
+			int total = 0;
+			for (; locked < shards.size(); locked++)
+			{
+				shards.get(locked).lock.readLock().lock();
+				total += shards.get(locked).tree.size();
+			}
+			if (total == 0)
+				return null;
+
+			// find the shard holding the median rank, and select it within the shard:
+			int rank = (total - 1) / 2;
+			for (Shard<T> shard : shards)
+			{
+				if (rank < shard.tree.size())
+					return shard.tree.select(rank).getData();
+				rank -= shard.tree.size();
+			}
+			return null;
+		}
+		finally
+		{
+			for (int i = 0; i < locked; i++)
+				shards.get(i).lock.readLock().unlock();
+			shardsLock.readLock().unlock();
+		}
+	}
+
+	/** @return the number of elements in all shards (exact unless shards are modified meanwhile) */
+	public int size()
+	{
+		int total = 0;
+		shardsLock.readLock().lock();
+		try
+		{
+			for (Shard<T> shard : shards)
+				total += shard.size;
+		}
+		finally
+		{
+			shardsLock.readLock().unlock();
+		}
+		return total;
+	}
+
+	/** @return the current number of shards */
+	public int getShardCount()
+	{
+		shardsLock.readLock().lock();
+		try
+		{
+			return shards.size();
+		}
+		finally
+		{
+			shardsLock.readLock().unlock();
+		}
+	}
+
+	/** @return the number of elements in each shard, in key order */
+	public int[] getShardSizes()
+	{
+		shardsLock.readLock().lock();
+		try
+		{
+			int[] sizes = new int[shards.size()];
+			for (int i = 0; i < sizes.length; i++)
+				sizes[i] = shards.get(i).size;
+			return sizes;
+		}
+		finally
+		{
+			shardsLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * In-order iteration over all shards.
+	 * Within a shard the iterator follows the threads from node to node, and past the last node of a shard
+	 * it continues from the minimum of the next one. The iterator is weakly consistent: if the forest was
+	 * modified since the last step, it continues from the first element larger than the last one returned.
+	 */
+	@Override
+	public Iterator<T> iterator()
+	{
+		return new ForestIterator();
+	}
+
+	/* the iterator over all shards: keeps it's position as a node, valid as long as the shard is unchanged */
+	private class ForestIterator implements Iterator<T>
+	{
+		private T last; // the last element returned, null before the first one
+		private BSTNode<T> nextNode; // the node to return next, valid only for the versions below
+		private T nextElement; // the element of nextNode, read while the node was valid
+		private int shardIndex, shardVersion, shardsVersion;
+		private boolean positioned; // true if nextNode is valid for the versions above
+
+		@Override
+		public boolean hasNext()
+		{
+			shardsLock.readLock().lock();
+			try
+			{
+				position();
+				return nextNode != null;
+			}
+			finally
+			{
+				shardsLock.readLock().unlock();
+			}
+		}
+
+		@Override
+		public T next()
+		{
+			shardsLock.readLock().lock();
+			try
+			{
+				position();
+				if (nextNode == null)
+					throw new NoSuchElementException();
+				last = nextElement;
+
+				// the node may only be followed while the shard is unchanged, since deleted nodes are recycled:
+				Shard<T> shard = shards.get(shardIndex);
+				shard.lock.readLock().lock();
+				try
+				{
+					if (shard.version == shardVersion)
+					{// follow the thread to the in-order successor:
+						nextNode = shard.tree.getSuccessor(nextNode);
+						nextElement = (nextNode == null) ? null : nextNode.getData();
+					}
+					else nextNode = null; // find the position again after the last element
+				}
+				finally
+				{
+					shard.lock.readLock().unlock();
+				}
+				if (nextNode == null)
+					positioned = false; // continue after the last element, in this shard or the next ones
+				return last;
+			}
+			finally
+			{
+				shardsLock.readLock().unlock();
+			}
+		}
+
+		/* make nextNode valid: keep it if nothing was modified, or find it again after the last element */
+		private void position()
+		{
+			if (positioned && shardsVersion == layoutVersion && shardVersion == shards.get(shardIndex).version)
+				return;
+			shardIndex = (last == null) ? 0 : shardIndexOf(last);
+			shardsVersion = layoutVersion;
+			for (nextNode = null; shardIndex < shards.size(); shardIndex++)
+			{
+				Shard<T> shard = shards.get(shardIndex);
+				shard.lock.readLock().lock();
+				try
+				{
+					nextNode = (last == null) ? minimumNode(shard.tree) : shard.tree.higher(last);
+					nextElement = (nextNode == null) ? null : nextNode.getData();
+					shardVersion = shard.version;
+				}
+				finally
+				{
+					shard.lock.readLock().unlock();
+				}
+				if (nextNode != null)
+					break;
+			}
+			positioned = nextNode != null;
+		}
+	}
+
+	/*
+	 * Split shards which grew beyond the threshold, and merge shards which shrank with a small neighbor.
+	 * Holding the shards table lock for writing, no other operation runs meanwhile.
+	 */
+	private void rebalance()
+	{
+		shardsLock.writeLock().lock();
+		try
+		{
+			for (int i = 0; i < shards.size(); i++)
+			{
+				Shard<T> shard = shards.get(i);
+				if (shard.size > splitThreshold)
+				{// split in two halves, the upper half starting from the middle element:
+					List<T> elements = elementsOf(shard.tree);
+					int middle = elements.size() / 2;
+					shards.set(i, new Shard<T>(WiredBST.buildFromSorted(elements.subList(0, middle)), shard.lowerBound));
+					shards.add(i + 1, new Shard<T>(WiredBST.buildFromSorted(elements.subList(middle, elements.size())),
+							elements.get(middle)));
+					layoutVersion++;
+					i++;
+				}
+				else if (isMergeable(i))
+				{// merge with the smaller neighbor, which keeps the lower bound of the lower shard:
+					int lower = (i == 0 || (i + 1 < shards.size() && shards.get(i + 1).size < shards.get(i - 1).size)) ? i : i - 1;
+					List<T> elements = elementsOf(shards.get(lower).tree);
+					elements.addAll(elementsOf(shards.get(lower + 1).tree));
+					shards.set(lower, new Shard<T>(WiredBST.buildFromSorted(elements), shards.get(lower).lowerBound));
+					shards.remove(lower + 1);
+					layoutVersion++;
+					i = lower - 1; // the merged shard could be merged again
+				}
+			}
+		}
+		finally
+		{
+			shardsLock.writeLock().unlock();
+		}
+	}
+
+	/* determine if a shard is small enough to be merged with one of it's neighbors (sizes are hints) */
+	private boolean isMergeable(int index)
+	{
+		if (shards.size() < 2 || shards.get(index).size > splitThreshold / 8)
+			return false;
+		int smallerNeighbor = Integer.MAX_VALUE;
+		if (index > 0)
+			smallerNeighbor = shards.get(index - 1).size;
+		if (index + 1 < shards.size())
+			smallerNeighbor = Math.min(smallerNeighbor, shards.get(index + 1).size);
+		return shards.get(index).size + smallerNeighbor <= splitThreshold / 2;
+	}
+
+	/* index of the shard whose key range contains the key: binary search of the lower bounds */
+	private int shardIndexOf(T key)
+	{
+		int low = 1, high = shards.size() - 1, result = 0;
+		while (low <= high)
+		{
+			int middle = (low + high) >>> 1;
+			if (shards.get(middle).lowerBound.compareTo(key) <= 0)
+			{
+				result = middle;
+				low = middle + 1;
+			}
+			else high = middle - 1;
+		}
+		return result;
+	}
+
+	/* the minimum element of a shard, read under the shard lock */
+	private T firstElement(Shard<T> shard)
+	{
+		shard.lock.readLock().lock();
+		try
+		{
+			BSTNode<T> node = minimumNode(shard.tree);
+			return (node == null) ? null : node.getData();
+		}
+		finally
+		{
+			shard.lock.readLock().unlock();
+		}
+	}
+
+	/* the sorted elements of a tree, collected by following the threads */
+	private static <T extends Comparable<T>> List<T> elementsOf(WiredBST<T> tree)
+	{
+		List<T> elements = new ArrayList<T>(tree.size());
+		for (BSTNode<T> node = minimumNode(tree); node != null; node = tree.getSuccessor(node))
+			elements.add(node.getData());
+		return elements;
+	}
+
+	/* minimum node of a tree, or null if it's empty */
+	private static <T extends Comparable<T>> BSTNode<T> minimumNode(WiredBST<T> tree)
+	{
+		return (tree.getRoot() == null) ? null : tree.getMinimum(tree.getRoot());
+	}
+} // end of class
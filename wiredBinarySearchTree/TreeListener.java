@@ -0,0 +1,23 @@
+package wiredBinarySearchTree;
+
+import binaryTree.BSTNode;
+
+/**
+ * @author Chanan Welt
+ *
+ * TreeListener - notified by a WiredBST about each structural change,
+ * so views of the tree could follow it (e.g, a secondary index), or know when their cached copy is stale (e.g, a layout).
+ * The notifications are sent by the mutating thread, after the tree is consistent again.
+ * @param <T> - the data type saved in the tree.
+ */
+public interface TreeListener<T extends Comparable<T>>
+{
+	/** A new leaf node was linked into the tree */
+	public void nodeInserted(BSTNode<T> node);
+
+	/** A node was unlinked from the tree */
+	public void nodeRemoved(BSTNode<T> node);
+
+	/** The tree was replaced as a whole (e.g, a new root was set) */
+	public void treeRebuilt();
+}
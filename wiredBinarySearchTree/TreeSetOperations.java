@@ -0,0 +1,197 @@
+package wiredBinarySearchTree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import binaryTree.BSTNode;
+
+/**
+ * @author Chanan Welt
+ *
+ * TreeSetOperations - union, intersection & difference of two wired BSTs in linear time.
+ * Both trees are streamed in-order along their successor threads, and merged like two sorted lists,
+ * so each element is compared once instead of being searched for in the other tree.
+ * The sorted result is then linked into a new balanced tree by the bulk build, in linear time as well.
+ * The parallel versions split the key range into parts by rank, merge the parts on several threads,
+ * and concatenate them before the build. The input trees are only read, and must not change meanwhile.
+ */
+public final class TreeSetOperations
+{
+	// Constants
+	private static final int PARALLEL_THRESHOLD = 1 << 14; // fewer elements are merged on one thread
+
+	/* which elements are kept by an operation: those only in the first tree, in both trees, or only in the second */
+	private enum Operation
+	{
+		UNION(true, true, true), INTERSECTION(false, true, false), DIFFERENCE(true, false, false);
+
+		final boolean keepFirstOnly, keepBoth, keepSecondOnly;
+
+		Operation(boolean keepFirstOnly, boolean keepBoth, boolean keepSecondOnly)
+		{
+			this.keepFirstOnly = keepFirstOnly;
+			this.keepBoth = keepBoth;
+			this.keepSecondOnly = keepSecondOnly;
+		}
+	}
+
+	/** Private constructor - this class has static methods only */
+	private TreeSetOperations() {}
+
+	/**
+	 * Union - all elements which are in either tree (elements of both trees are taken from the first).
+	 * @param first - the first tree.
+	 * @param second - the second tree.
+	 * @return a new balanced tree of the union.
+	 */
+	public static <T extends Comparable<T>> WiredBST<T> union(WiredBST<T> first, WiredBST<T> second)
+	{
+		return union(first, second, 1);
+	}
+
+	/**
+	 * Intersection - the elements which are in both trees (taken from the first).
+	 * @param first - the first tree.
+	 * @param second - the second tree.
+	 * @return a new balanced tree of the intersection.
+	 */
+	public static <T extends Comparable<T>> WiredBST<T> intersection(WiredBST<T> first, WiredBST<T> second)
+	{
+		return intersection(first, second, 1);
+	}
+
+	/**
+	 * Difference - the elements of the first tree which are not in the second.
+	 * @param first - the first tree.
+	 * @param second - the second tree.
+	 * @return a new balanced tree of the difference.
+	 */
+	public static <T extends Comparable<T>> WiredBST<T> difference(WiredBST<T> first, WiredBST<T> second)
+	{
+		return difference(first, second, 1);
+	}
+
+	/**
+	 * Union, merged in parallel.
+	 * @param parallelism - the number of key range parts to merge in parallel (1 for a sequential merge).
+	 * @see #union(WiredBST, WiredBST)
+	 */
+	public static <T extends Comparable<T>> WiredBST<T> union(WiredBST<T> first, WiredBST<T> second, int parallelism)
+	{
+		return apply(first, second, Operation.UNION, parallelism);
+	}
+
+	/**
+	 * Intersection, merged in parallel.
+	 * @param parallelism - the number of key range parts to merge in parallel (1 for a sequential merge).
+	 * @see #intersection(WiredBST, WiredBST)
+	 */
+	public static <T extends Comparable<T>> WiredBST<T> intersection(WiredBST<T> first, WiredBST<T> second, int parallelism)
+	{
+		return apply(first, second, Operation.INTERSECTION, parallelism);
+	}
+
+	/**
+	 * Difference, merged in parallel.
+	 * @param parallelism - the number of key range parts to merge in parallel (1 for a sequential merge).
+	 * @see #difference(WiredBST, WiredBST)
+	 */
+	public static <T extends Comparable<T>> WiredBST<T> difference(WiredBST<T> first, WiredBST<T> second, int parallelism)
+	{
+		return apply(first, second, Operation.DIFFERENCE, parallelism);
+	}
+
+	/* merge both trees by the operation, in parts if it's worth it, and build the result tree */
+	private static <T extends Comparable<T>> WiredBST<T> apply(WiredBST<T> first, WiredBST<T> second, Operation operation, int parallelism)
+	{
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+		if (parallelism == 1 || first.size() + second.size() < PARALLEL_THRESHOLD)
+		{
+			List<T> result = new ArrayList<T>(first.size() + second.size());
+			merge(first, minimumNode(first), second, minimumNode(second), null, operation, result);
+			return WiredBST.buildFromSorted(result);
+		}
+
+		// split the key range by ranks of the larger tree, so the parts are about the same size:
+		WiredBST<T> larger = (first.size() >= second.size()) ? first : second;
+		List<T> splitters = new ArrayList<T>(parallelism + 1);
+		splitters.add(null); // the first part is not bounded from below
+		for (int part = 1; part < parallelism; part++)
+			splitters.add(larger.select((int) ((long) part * larger.size() / parallelism)).getData());
+		splitters.add(null); // the last part is not bounded from above
+
+		// merge each part [splitter, next splitter) on it's own thread:
+		List<CompletableFuture<List<T>>> parts = new ArrayList<CompletableFuture<List<T>>>(parallelism);
+		for (int part = 0; part < parallelism; part++)
+		{
+			T low = splitters.get(part), high = splitters.get(part + 1);
+			parts.add(CompletableFuture.supplyAsync(() -> {
+				List<T> result = new ArrayList<T>();
+				merge(first, ceilingNode(first, low), second, ceilingNode(second, low), high, operation, result);
+				return result;
+			}));
+		}
+		List<T> result = new ArrayList<T>(first.size() + second.size());
+		for (CompletableFuture<List<T>> part : parts)
+			result.addAll(part.join());
+		return WiredBST.buildFromSorted(result);
+	}
+
+	/*
+	 * Merge two in-order streams, from the given nodes up to (not including) the high key (null for no bound),
+	 * and add the elements kept by the operation to the result, in ascending order.
+	 */
+	private static <T extends Comparable<T>> void merge(WiredBST<T> first, BSTNode<T> x, WiredBST<T> second, BSTNode<T> y,
+			T high, Operation operation, List<T> result)
+	{
+		if (high != null)
+		{// streams end at the high key:
+			x = (x != null && x.getData().compareTo(high) >= 0) ? null : x;
+			y = (y != null && y.getData().compareTo(high) >= 0) ? null : y;
+		}
+		while (x != null || y != null)
+		{
+			int comparison = (x == null) ? 1 : (y == null) ? -1 : x.getData().compareTo(y.getData());
+			if (comparison < 0)
+			{// only in the first tree:
+				if (operation.keepFirstOnly)
+					result.add(x.getData());
+				x = next(first, x, high);
+			}
+			else if (comparison > 0)
+			{// only in the second tree:
+				if (operation.keepSecondOnly)
+					result.add(y.getData());
+				y = next(second, y, high);
+			}
+			else
+			{// in both trees:
+				if (operation.keepBoth)
+					result.add(x.getData());
+				x = next(first, x, high);
+				y = next(second, y, high);
+			}
+		}
+	}
+
+	/* the in-order successor along the threads, or null past the high key */
+	private static <T extends Comparable<T>> BSTNode<T> next(WiredBST<T> tree, BSTNode<T> node, T high)
+	{
+		node = tree.getSuccessor(node);
+		return (node == null || (high != null && node.getData().compareTo(high) >= 0)) ? null : node;
+	}
+
+	/* minimum node of a tree, or null if it's empty */
+	private static <T extends Comparable<T>> BSTNode<T> minimumNode(WiredBST<T> tree)
+	{
+		return (tree.getRoot() == null) ? null : tree.getMinimum(tree.getRoot());
+	}
+
+	/* the node of the smallest element larger than or equal to the key (the minimum for a null key) */
+	private static <T extends Comparable<T>> BSTNode<T> ceilingNode(WiredBST<T> tree, T key)
+	{
+		return (key == null) ? minimumNode(tree) : tree.ceiling(key);
+	}
+} // end of class
@@ -3,10 +3,22 @@ package wiredBinarySearchTree;
 import binaryTree.BSTNode;
 import binaryTree.BSTInterface;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
+import java.util.function.ToIntFunction;
 
 import javax.management.openmbean.KeyAlreadyExistsException;
 
@@ -19,11 +31,40 @@ import javax.management.openmbean.KeyAlreadyExistsException;
  */
 public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 {
+	// Constants
+	private static final int SNAPSHOT_MAGIC = 0x57425353; // "WBSS"
+	private static final int SNAPSHOT_VERSION = 1;
+	private static final int SNAPSHOT_BUFFER_SIZE = 1 << 20;
+	private static final int SNAPSHOT_HEADER_SIZE = 16; // magic, version, size & median position
+	private static final int DEFAULT_NODE_POOL_CAPACITY = 1024; // released nodes kept for recycling
+	private static final int MAX_CACHED_DUMP_NODES = 1 << 14; // larger trees are dumped without caching
+	private static final int MAX_SHIFTED_SUBTREE = 1024; // a delete which moves a larger sub-tree leaves the levels uncounted
+	private static final String DUMP_TITLE = "\n============================\n";
+	
 	//Instance variables
 	private BSTNode<T> root;
 	private BSTNode<T> median; 
 	private int elementsSmallerThanMedian;
 	private int elementsLargerThanMedian;
+	private final List<TreeListener<T>> listeners = new ArrayList<TreeListener<T>>();
+	
+	// level statistics, maintained by insert & delete: 
+	private int[] levelWidths; // number of nodes in each level (the root is in level 0)
+	private int levelCount; // number of non empty levels
+	private int maxWidth; // number of nodes in the widest level 
+	private boolean maxWidthValid; // false if the widest level must be found again
+	private boolean levelStatisticsValid; // false after split or join, until the levels are counted again
+	
+	// free list of released nodes, recycled by insert: 
+	private BSTNode<T>[] nodePool; // allocated when the first node is released
+	private int nodePoolCapacity;
+	private int pooledNodes; // number of nodes in the pool
+	
+	// level order dump: 
+	private int modificationCount; // changed by each structural change, to stamp the cached dump & fail fast iterators
+	private String cachedDump; // the last level order dump, valid while the stamps match
+	private int cachedDumpVersion, cachedDumpLevels;
+	private NodeQueue<T> levelQueue; // reused by the level order scans (the dump & the level statistics maintenance)
 
 	/** Constructor 1 - default version.
 	 *  Construct an empty wired BST(binary search tree).
@@ -34,6 +75,11 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 		median = null;
 		elementsSmallerThanMedian = 0;
 		elementsLargerThanMedian = 0;
+		levelWidths = new int[16];
+		levelCount = 0;
+		maxWidthValid = false;
+		levelStatisticsValid = true;
+		setNodePoolCapacity(DEFAULT_NODE_POOL_CAPACITY);
 	}
 	
 	/** Constructor 2 - customized version 
@@ -46,11 +92,104 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 		median = node;
 		elementsSmallerThanMedian = 0;
 		elementsLargerThanMedian = 0;
+		levelWidths = new int[16];
+		recalculateStatistics();
+		setNodePoolCapacity(DEFAULT_NODE_POOL_CAPACITY);
 	}
 	
 	// basic setter and getters: 
 	public BSTNode<T> getRoot() {return root;}
-	public void setRoot(BSTNode<T> newRoot) {this.root = newRoot;}
+	public void setRoot(BSTNode<T> newRoot) 
+	{
+		this.root = newRoot;
+		recalculateStatistics();
+		modificationCount++;
+		for (TreeListener<T> listener : listeners)
+			listener.treeRebuilt();
+	}
+	
+	/** @return a stamp which changes by each structural change (e.g, for fail fast iterators) */
+	public int getModificationCount() {return modificationCount;}
+	
+	/**
+	 * Register a listener to be notified about each structural change of the tree.
+	 * @param listener - the listener to add.
+	 */
+	public void addTreeListener(TreeListener<T> listener) {listeners.add(listener);}
+	
+	/**
+	 * Stop notifying a listener about changes of the tree.
+	 * @param listener - the listener to remove.
+	 */
+	public void removeTreeListener(TreeListener<T> listener) {listeners.remove(listener);}
+
+	/**
+	 * Set the maximal number of released nodes kept for recycling (zero disables the node pool).
+	 * Extra pooled nodes are dropped if the pool shrinks.
+	 * @param capacity - the maximal size of the node pool.
+	 */
+	public void setNodePoolCapacity(int capacity)
+	{
+		if (capacity < 0)
+			throw new IllegalArgumentException("Invalid node pool capacity: " + capacity);
+		nodePoolCapacity = capacity;
+		pooledNodes = Math.min(pooledNodes, capacity);
+		if (nodePool != null)
+			nodePool = Arrays.copyOf(nodePool, capacity);
+	}
+	
+	// node pool getters: 
+	public int getNodePoolCapacity() {return nodePoolCapacity;}
+	public int getPooledNodeCount() {return pooledNodes;}
+	
+	/**
+	 * Release a node which was deleted from the tree, so a later insert could recycle it instead of allocating.
+	 * Delete returns the deleted node, so callers may still read it; a caller which is done with the node
+	 * releases it, and must not use it afterwards. 
+	 * The data of a released node is cleared, so a node released twice (or used after release) is detected.
+	 * @param node - a node which was deleted from this tree (null is ignored).
+	 * @throws IllegalStateException if the node was already released.
+	 * @throws IllegalArgumentException if the node is still linked in the tree.
+	 */
+	public void release(BSTNode<T> node)
+	{
+		if (node == null)
+			return;
+		if (node.getData() == null)
+			throw new IllegalStateException("The node was already released");
+		if (node == root || node.getParent() != null) // delete detaches the node, only the root has no parent
+			throw new IllegalArgumentException(String.format("Node <%s> is still in the tree", node.getData()));
+		poolNode(node);
+	}
+	
+	/* clear a node which is not linked in the tree, and keep it in the pool if there is room for it */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void poolNode(BSTNode<T> node)
+	{
+		node.setData(null);
+		node.setParent(null);
+		node.setLeft(null);
+		node.setRight(null);
+		if (pooledNodes < nodePoolCapacity)
+		{
+			if (nodePool == null)
+				nodePool = new BSTNode[nodePoolCapacity];
+			nodePool[pooledNodes++] = node;
+		}
+	}
+	
+	/* take a cleared node from the pool, or allocate a new one if the pool is empty */
+	private BSTNode<T> obtainNode(T dataElement)
+	{
+		if (pooledNodes == 0)
+			return new BSTNode<T>(dataElement);
+		BSTNode<T> node = nodePool[--pooledNodes];
+		nodePool[pooledNodes] = null;
+		node.setData(dataElement);
+		node.setHeight(0);
+		node.setSize(1);
+		return node;
+	}
 
 	
 	/** 
@@ -64,22 +203,32 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 		BSTNode<T> z; // the new node for the new Elements data argument  
 		
 		x = root;
-		z = new BSTNode<T>(newElement); // create node for the new dataElement 
+		z = obtainNode(newElement); // create (or recycle) node for the new dataElement 
+		int depth = 0; // depth of x 
 		
 		// First we find suitable place on tree to place new node z
 		while (x != null)
 		{
 			// navigate right if new key is larger & right child is not wired:
 			if ((z.getData().compareTo(x.getData()) == 0))
-				throw new KeyAlreadyExistsException(String.format("Duplicate key for element <%s>", z.getData())); 
+			{
+				poolNode(z); // the node was not linked, so it could be recycled right away
+				throw new KeyAlreadyExistsException(String.format("Duplicate key for element <%s>", newElement)); 
+			}
 			
 			// navigate left if new key is smaller & left child is not wired:  
 			else if ((z.getData().compareTo(x.getData()) < 0) && !(x.isPointerWired(x.getLeft())))
+			{
 				x = x.getLeft();
+				depth++;
+			}
 			
 			// navigate right if new key is larger & right child is not wired:
 			else if ((z.getData().compareTo(x.getData()) > 0) &&!(x.isPointerWired(x.getRight())))
+			{
 				x = x.getRight();
+				depth++;
+			}
 			
 			// end navigation if next node is either wired or NIL
 			else break;  
@@ -89,7 +238,7 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 		
 		// case 1: tree was empty, set new node to be it's root
 		if (x == null) 
-			this.setRoot(z);
+			root = z;
 		
 		// case 2: z should be a left child of x:
 		else if ((z.getData().compareTo(x.getData()) < 0))
@@ -108,6 +257,25 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 			x.setRight(z);
 		}
 		
+		// level statistics & heights maintenance (heights change only up to the first unchanged ancestor): 
+		addToLevel((x == null) ? 0 : depth + 1, 1);
+		for (BSTNode<T> node = z.getParent(); node != null; node = node.getParent())
+		{
+			int height = heightOf(node);
+			if (height == node.getHeight())
+				break;
+			node.setHeight(height);
+		}
+		
+		// sub-tree sizes maintenance (all the ancestors got one more node): 
+		for (BSTNode<T> node = z.getParent(); node != null; node = node.getParent())
+			node.setSize(node.getSize() + 1);
+		
+		// notify listeners, before median maintenance: 
+		modificationCount++;
+		for (TreeListener<T> listener : listeners)
+			listener.nodeInserted(z);
+		
 		// median maintenance: 
 		if (median == null) // tree was empty, set the new node z to be the median 
 			median = z;
@@ -124,6 +292,12 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 	
 	/**
 	 * Delete (pointer version) - delete & return given node. 
+	 * Takes O(h): besides the path to the root, the level widths are updated for the sub-tree which moves 
+	 * one level up (z's single child, or the successor's right child), node by node, if it has up to 
+	 * MAX_SHIFTED_SUBTREE nodes; a larger sub-tree (e.g, near the root of a list like tree) isn't scanned, 
+	 * and the levels are counted again by the next level query, in O(n), as after split or join.
+	 * The deleted node keeps it's data, but it's links are cleared.
+	 * Once the caller is done with the deleted node, it could be given back by release(). 
 	 * @param z node to be deleted. 
 	 * @return z node which was deleted, or null if the tree is empty 
 	 */
@@ -140,10 +314,19 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 		BSTNode<T> zRight = z.getRight();
 		BSTNode<T> zSuccessor = this.getSuccessor(z);
 		BSTNode<T> zPredecessor = this.getPredecessor(z);
+		int zDepth = depthOf(z);
+		BSTNode<T> lowestChanged = zParent; // the heights are updated from this node up 
 		
 		// Handle case 1: z has two "real" children (NOT wires):
 		if (!(z.isPointerWired(zLeft)) && !(z.isPointerWired(zRight)))
 		{
+			// level statistics: the successor leaves it's level for z's level, and it's right sub-tree moves one level up:
+			int successorDepth = depthOf(zSuccessor);
+			addToLevel(successorDepth, -1);
+			if (!zSuccessor.isPointerWired(zSuccessor.getRight()))
+				shiftSubtreeUp(zSuccessor.getRight(), successorDepth + 1);
+			lowestChanged = (zSuccessor == zRight) ? zSuccessor : zSuccessor.getParent();
+			
 			if ((zRight != zSuccessor) && (!zSuccessor.isPointerWired(zSuccessor.getRight())))
 			{
 				zSuccessor.getRight().setParent(zSuccessor.getParent());
@@ -161,7 +344,7 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 			
 			zSuccessor.setParent(zParent);
 			if(zSuccessor.getParent() == null)
-				setRoot(zSuccessor);
+				root = zSuccessor;
 			else if (z == zSuccessor.getParent().getLeft())
 				zSuccessor.getParent().setLeft(zSuccessor);
 			else zSuccessor.getParent().setRight(zSuccessor);
@@ -178,7 +361,7 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 			
 			// if z was the root of the tree then make it's child the new root:  
 			if(zParent == null)
-				this.setRoot(zRight);
+				root = zRight;
 			
 			// if z was a left child, set it's parent left pointer to z'ds child:
 			else if (z == zParent.getLeft())
@@ -189,6 +372,8 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 			
 			// set z'ds successor left pointer point to z'ds predecessor:
 			zSuccessor.setLeft(zLeft);
+			addToLevel(zDepth, -1);
+			shiftSubtreeUp(zRight, zDepth + 1);
 		}
 		
 		// Case 3: z has a child on left & a wire on right:  
@@ -200,7 +385,7 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 				
 			// if z was the root of the tree then make it's child the new root:  
 			if(zParent == null)
-				this.setRoot(zLeft);
+				root = zLeft;
 				
 			// if z was a left child, set it's parent left pointer to z'ds child:
 			else if (z == zParent.getLeft())
@@ -211,6 +396,8 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 				
 			// set z'ds predecessors right pointer point to z'ds successor:
 			zPredecessor.setRight(zRight);
+			addToLevel(zDepth, -1);
+			shiftSubtreeUp(zLeft, zDepth + 1);
 		}
 		
 		// Handle case 4: z has two "leaves" i.e, both left & right pointers are wires 
@@ -218,7 +405,7 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 		{
 			// if z is the root then make the root NIL
 			if(zParent == null)
-				this.setRoot(null);
+				root = null;
 				
 			// if z is a left child, set it's parent left pointer to z'ds predecessor:
 			else if (z == zParent.getLeft())
@@ -226,8 +413,17 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 				
 			// if z is a right child, set it's parent right pointer to z'ds successor: 
 			else zParent.setRight(zSuccessor);
+			addToLevel(zDepth, -1);
 		}
 		
+		// heights & sizes maintenance, from the lowest changed node up to the root: 
+		updatePathStatistics(lowestChanged);
+		
+		// notify listeners about the removed node: 
+		modificationCount++;
+		for (TreeListener<T> listener : listeners)
+			listener.nodeRemoved(z);
+		
 		/* median maintenance */ 
 		// if we just deleted the median, set a new one according to new balance: 
 		if (z == median) 
@@ -256,6 +452,10 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 			updateMedian();
 		}
 
+		// detach z, so it's links can't lead back into the tree (and release can tell it was deleted):
+		z.setParent(null);
+		z.setLeft(null);
+		z.setRight(null);
 		return z; // return node which was deleted
 	}
 
@@ -305,6 +505,139 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 		return null; 
 	}
 	
+	/**
+	 * Search by key - search for the element with the given int key, without building a probe element.
+	 * The key extractor must agree with the elements order, i.e. a smaller key means a smaller element.
+	 * @param key - the key to search for.
+	 * @param keyExtractor - extracts the int key of a stored element (e.g, Student::getId).
+	 * @return reference to node if the key was found, or NIL otherwise. 
+	 */
+	public BSTNode<T> searchByKey(int key, ToIntFunction<? super T> keyExtractor)
+	{
+		BSTNode<T> x = root;
+		while (x != null)
+		{	// compare the primitive keys directly:
+			int comparisonResult = Integer.compare(keyExtractor.applyAsInt(x.getData()), key);
+			if (comparisonResult == 0)  
+				return x;
+			else if ((comparisonResult < 0) && !(x.isPointerWired(x.getRight())))
+				x = x.getRight();
+			else if ((comparisonResult > 0) && !(x.isPointerWired(x.getLeft())))
+				x = x.getLeft();
+			else return null;
+		}
+		return null; 
+	}
+	
+	/**
+	 * Delete by key - delete & return the node of the element with the given int key.
+	 * @param key - the key to delete.
+	 * @param keyExtractor - extracts the int key of a stored element, as in searchByKey.
+	 * @return the node which was deleted, or null if the key does not exist in tree.  
+	 */
+	public BSTNode<T> deleteByKey(int key, ToIntFunction<? super T> keyExtractor)
+	{
+		return delete(searchByKey(key, keyExtractor));
+	}
+	
+	/**
+	 * Floor - the largest element which is smaller than or equal to a key (the key doesn't have to be in the tree).
+	 * Like the other navigation queries, it takes one descent: when the descent stops below a node,
+	 * the answer is either that node or the neighbor which it's thread points to.
+	 * @param k - the key.
+	 * @return the node of the floor element, or null if all elements are larger.
+	 */
+	public BSTNode<T> floor(T k) {return locate(k, false, true);}
+	
+	/**
+	 * Ceiling - the smallest element which is larger than or equal to a key.
+	 * @param k - the key.
+	 * @return the node of the ceiling element, or null if all elements are smaller.
+	 */
+	public BSTNode<T> ceiling(T k) {return locate(k, true, true);}
+	
+	/**
+	 * Lower - the largest element which is strictly smaller than a key.
+	 * @param k - the key.
+	 * @return the node of the lower element, or null if there is none.
+	 */
+	public BSTNode<T> lower(T k) {return locate(k, false, false);}
+	
+	/**
+	 * Higher - the smallest element which is strictly larger than a key.
+	 * @param k - the key.
+	 * @return the node of the higher element, or null if there is none.
+	 */
+	public BSTNode<T> higher(T k) {return locate(k, true, false);}
+	
+	/**
+	 * Lower by key - the largest element whose int key is strictly smaller than the given key.
+	 * @param key - the key.
+	 * @param keyExtractor - extracts the int key of a stored element, as in searchByKey.
+	 * @return the node of the lower element, or null if there is none.
+	 */
+	public BSTNode<T> lowerByKey(int key, ToIntFunction<? super T> keyExtractor) {return locateByKey(key, keyExtractor, false);}
+	
+	/**
+	 * Higher by key - the smallest element whose int key is strictly larger than the given key.
+	 * @param key - the key.
+	 * @param keyExtractor - extracts the int key of a stored element, as in searchByKey.
+	 * @return the node of the higher element, or null if there is none.
+	 */
+	public BSTNode<T> higherByKey(int key, ToIntFunction<? super T> keyExtractor) {return locateByKey(key, keyExtractor, true);}
+	
+	/*
+	 * Navigation descent: find the nearest element above (upward) or below the key, 
+	 * or the key itself if inclusive. When a key equal to a node's element isn't accepted,
+	 * the descent continues to the side of the requested direction.
+	 */
+	private BSTNode<T> locate(T k, boolean upward, boolean inclusive)
+	{
+		BSTNode<T> x = root;
+		while (x != null)
+		{
+			int comparisonResult = k.compareTo(x.getData());
+			if (comparisonResult == 0 && inclusive)
+				return x;
+			if (comparisonResult > 0 || (comparisonResult == 0 && upward))
+			{// the answer is to the right of x; x itself, if the descent stops here going down:
+				if (x.isPointerWired(x.getRight()))
+					return upward ? x.getRight() : x; // the right thread points to x's successor
+				x = x.getRight();
+			}
+			else
+			{// the answer is to the left of x; x itself, if the descent stops here going up:
+				if (x.isPointerWired(x.getLeft()))
+					return upward ? x : x.getLeft(); // the left thread points to x's predecessor
+				x = x.getLeft();
+			}
+		}
+		return null;
+	}
+	
+	/* the strict navigation descent (see locate), comparing primitive int keys */
+	private BSTNode<T> locateByKey(int key, ToIntFunction<? super T> keyExtractor, boolean upward)
+	{
+		BSTNode<T> x = root;
+		while (x != null)
+		{
+			int comparisonResult = Integer.compare(key, keyExtractor.applyAsInt(x.getData()));
+			if (comparisonResult > 0 || (comparisonResult == 0 && upward))
+			{
+				if (x.isPointerWired(x.getRight()))
+					return upward ? x.getRight() : x;
+				x = x.getRight();
+			}
+			else
+			{
+				if (x.isPointerWired(x.getLeft()))
+					return upward ? x : x.getLeft();
+				x = x.getLeft();
+			}
+		}
+		return null;
+	}
+	
 	/** 
 	 * getSuccessor
 	 * @param node of which wer'e interested in getting it's successor. 
@@ -513,6 +846,308 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 		return median;
 	}
 	
+	/**
+	 * Get the number of elements in the tree in O(1), as counted by the median maintenance.
+	 * @return the number of elements in the tree. 
+	 */
+	public int size()
+	{
+		return (median == null) ? 0 : elementsSmallerThanMedian + elementsLargerThanMedian + 1;
+	}
+	
+	/**
+	 * Select - find the element of a given rank, in O(height), using the maintained sub-tree sizes.
+	 * @param rank - the zero based position of the element in the sorted order.
+	 * @return the node of the element, or null if the rank is out of range.
+	 */
+	public BSTNode<T> select(int rank)
+	{
+		if (root == null || rank < 0 || rank >= root.getSize())
+			return null;
+		BSTNode<T> x = root;
+		while (true)
+		{
+			int leftSize = x.isPointerWired(x.getLeft()) ? 0 : x.getLeft().getSize();
+			if (rank < leftSize)
+				x = x.getLeft();
+			else if (rank == leftSize)
+				return x;
+			else
+			{// skip the left sub-tree & x itself:
+				rank -= leftSize + 1;
+				x = x.getRight();
+			}
+		}
+	}
+	
+	/**
+	 * Rank - count the elements which are smaller than a key, in O(height).
+	 * @param k - the key (it doesn't have to be in the tree).
+	 * @return the number of elements smaller than k, which is also the rank of k if it's in the tree.
+	 */
+	public int rank(T k)
+	{
+		int rank = 0;
+		BSTNode<T> x = root;
+		while (x != null)
+		{
+			if (x.getData().compareTo(k) < 0)
+			{// x & it's left sub-tree are smaller than k:
+				rank += (x.isPointerWired(x.getLeft()) ? 0 : x.getLeft().getSize()) + 1;
+				if (x.isPointerWired(x.getRight()))
+					break;
+				x = x.getRight();
+			}
+			else if (x.isPointerWired(x.getLeft()))
+				break;
+			else x = x.getLeft();
+		}
+		return rank;
+	}
+	
+	/**
+	 * First k - the keys of the k smallest elements, in ascending order.
+	 * Starts from the minimum and follows the successor threads, in O(height + k), without allocating.
+	 * @param k - the number of keys wanted.
+	 * @param keys - the array which receives the keys (at least k long).
+	 * @param keyExtractor - extracts the int key of a stored element, as in searchByKey.
+	 * @return the number of keys written, less than k if the tree is smaller.
+	 */
+	public int firstK(int k, int[] keys, ToIntFunction<? super T> keyExtractor)
+	{
+		checkResultArray(k, keys);
+		return collectKeys(getMinimum(root), true, k, keys, keyExtractor);
+	}
+	
+	/**
+	 * Last k - the keys of the k largest elements, in descending order.
+	 * Starts from the maximum and follows the predecessor threads, in O(height + k), without allocating.
+	 * @param k - the number of keys wanted.
+	 * @param keys - the array which receives the keys (at least k long).
+	 * @param keyExtractor - extracts the int key of a stored element, as in searchByKey.
+	 * @return the number of keys written, less than k if the tree is smaller.
+	 */
+	public int lastK(int k, int[] keys, ToIntFunction<? super T> keyExtractor)
+	{
+		checkResultArray(k, keys);
+		return collectKeys(getMaximum(root), false, k, keys, keyExtractor);
+	}
+	
+	/**
+	 * Around median - the keys of the k elements nearest to the median by rank, in ascending order.
+	 * The window is centered on the (lower) median, and shifted inwards at the ends of the tree.
+	 * Steps back from the median along the predecessor threads to the start of the window,
+	 * then collects along the successor threads, in O(k) and without allocating.
+	 * @param k - the number of keys wanted.
+	 * @param keys - the array which receives the keys (at least k long).
+	 * @param keyExtractor - extracts the int key of a stored element, as in searchByKey.
+	 * @return the number of keys written, less than k if the tree is smaller.
+	 */
+	public int aroundMedian(int k, int[] keys, ToIntFunction<? super T> keyExtractor)
+	{
+		checkResultArray(k, keys);
+		int n = size();
+		k = Math.min(k, n);
+		if (k == 0)
+			return 0;
+		
+		// first rank of the window, so it doesn't pass the end of the tree:
+		int medianRank = (n - 1) / 2;
+		int start = Math.max(0, Math.min(n - k, medianRank - (k - 1) / 2));
+		BSTNode<T> x = median;
+		for (int steps = medianRank - start; steps > 0; steps--)
+			x = getPredecessor(x);
+		return collectKeys(x, true, k, keys, keyExtractor);
+	}
+	
+	/* validate the arguments of the k queries */
+	private static void checkResultArray(int k, int[] keys)
+	{
+		if (k < 0 || k > keys.length)
+			throw new IllegalArgumentException("Invalid k: " + k + " (keys array length " + keys.length + ")");
+	}
+	
+	/* write the keys of up to k elements from the given node along the successor (or predecessor) threads */
+	private int collectKeys(BSTNode<T> x, boolean forward, int k, int[] keys, ToIntFunction<? super T> keyExtractor)
+	{
+		int count = 0;
+		for (; x != null && count < k; count++)
+		{
+			keys[count] = keyExtractor.applyAsInt(x.getData());
+			x = forward ? getSuccessor(x) : getPredecessor(x);
+		}
+		return count;
+	}
+	
+	/**
+	 * Split - move all the elements which are larger than or equal to a key into a new tree.
+	 * Only the nodes along the search path of the key are re-linked: each of them joins the tree of it's side,
+	 * hooked below the previous path node of that side, and only the two boundary threads are cut.
+	 * The heights & sizes are recalculated along the path, and the medians are selected by rank,
+	 * so the split takes O(height). The level statistics of both trees are counted again only when queried.
+	 * @param k - the split key.
+	 * @return a new tree holding the elements which are larger than or equal to k, while this tree keeps the smaller ones.
+	 */
+	public WiredBST<T> split(T k)
+	{
+		WiredBST<T> right = detach(k, false);
+		this.structureChanged();
+		right.structureChanged();
+		return right;
+	}
+	
+	/* 
+	 * The split itself, without the median & listeners maintenance:
+	 * move the elements larger than k (and k itself, unless keepKey is set) into a new tree, and return it. 
+	 */
+	private WiredBST<T> detach(T k, boolean keepKey)
+	{
+		WiredBST<T> right = new WiredBST<T>();
+		BSTNode<T> leftHook = null, rightHook = null; // the last path node which joined each side
+		BSTNode<T> x = root;
+		root = null;
+		while (x != null)
+		{
+			BSTNode<T> next;
+			int comparison = x.getData().compareTo(k);
+			if (comparison < 0 || (comparison == 0 && keepKey))
+			{// x & it's left sub-tree stay in this tree, continue to it's right sub-tree:
+				next = x.isPointerWired(x.getRight()) ? null : x.getRight();
+				x.setParent(leftHook);
+				if (leftHook == null)
+					root = x;
+				else leftHook.setRight(x);
+				leftHook = x;
+			}
+			else
+			{// x & it's right sub-tree move to the right tree, continue to it's left sub-tree:
+				next = x.isPointerWired(x.getLeft()) ? null : x.getLeft();
+				x.setParent(rightHook);
+				if (rightHook == null)
+					right.root = x;
+				else rightHook.setLeft(x);
+				rightHook = x;
+			}
+			x = next;
+		}
+		
+		// the last hooks are the maximum of the left side & the minimum of the right side, cut the threads between them: 
+		if (leftHook != null)
+			leftHook.setRight(null);
+		if (rightHook != null)
+			rightHook.setLeft(null);
+		
+		// heights & sizes changed along the path only:
+		updatePathStatistics(leftHook);
+		right.updatePathStatistics(rightHook);
+		return right;
+	}
+	
+	/**
+	 * Join - move all the elements of a right tree into a left tree, where all the right elements are larger.
+	 * The maximum of the left tree is detached, and becomes the new root with both trees as it's children,
+	 * so only it's threads are fixed, and the join takes O(height). The right tree is left empty.
+	 * @param left - the tree of the smaller elements, which receives all the elements.
+	 * @param right - the tree of the larger elements.
+	 * @return the left tree.
+	 * @throws IllegalArgumentException if the trees overlap.
+	 */
+	public static <T extends Comparable<T>> WiredBST<T> join(WiredBST<T> left, WiredBST<T> right)
+	{
+		if (right.root == null)
+			return left;
+		if (left.root != null && left.getMaximum(left.root).getData().compareTo(right.getMinimum(right.root).getData()) >= 0)
+			throw new IllegalArgumentException(String.format("Can't join overlapping trees at <%s>", right.getMinimum(right.root).getData()));
+		left.append(right);
+		left.structureChanged();
+		right.structureChanged();
+		return left;
+	}
+	
+	/* 
+	 * The join itself, without the median & listeners maintenance: 
+	 * move all the elements of the right tree (which are all larger) into this tree. 
+	 */
+	private void append(WiredBST<T> right)
+	{
+		if (right.root == null)
+			return;
+		if (root == null)
+		{// just take over the right tree:
+			root = right.root;
+			right.root = null;
+			return;
+		}
+		
+		// detach m: it's left sub-tree takes it's place (m has no right child, as the maximum):
+		BSTNode<T> m = getMaximum(root);
+		BSTNode<T> rightMinimum = right.getMinimum(right.root);
+		BSTNode<T> mParent = m.getParent();
+		BSTNode<T> mLeft = m.isPointerWired(m.getLeft()) ? null : m.getLeft();
+		BSTNode<T> leftRoot = (mParent == null) ? mLeft : root;
+		if (mLeft != null)
+			mLeft.setParent(mParent);
+		if (mParent != null)
+			mParent.setRight((mLeft != null) ? mLeft : m); // m stays the successor of it's parent, as a thread
+		
+		// m becomes the root, between both trees (the predecessor's thread to m remains valid):
+		m.setParent(null);
+		m.setLeft(leftRoot);
+		if (leftRoot != null)
+			leftRoot.setParent(m);
+		m.setRight(right.root);
+		right.root.setParent(m);
+		rightMinimum.setLeft(m); // thread the right minimum back to it's new predecessor
+		root = m;
+		right.root = null;
+		updatePathStatistics((mParent != null) ? mParent : m);
+	}
+	
+	/**
+	 * Delete Range - delete all the elements between two keys (inclusive) at once, in O(height).
+	 * The range is detached by two splits, and the rest is joined back, so only the boundary threads are re-wired,
+	 * and the median is selected by rank from the new size. 
+	 * The deleted nodes are left to the garbage collector (callers may still hold them, so they are not recycled).
+	 * Listeners are notified once, that the tree was rebuilt.
+	 * @param low - the lowest key to delete.
+	 * @param high - the highest key to delete.
+	 * @return the number of elements which were deleted.
+	 */
+	public int deleteRange(T low, T high)
+	{
+		if (root == null || low.compareTo(high) > 0)
+			return 0;
+		WiredBST<T> range = detach(low, false); // this tree keeps the elements smaller than low
+		WiredBST<T> upper = range.detach(high, true); // the range keeps the elements up to high
+		int deleted = (range.root == null) ? 0 : range.root.getSize();
+		append(upper);
+		structureChanged(); // even if nothing was deleted, the path of the splits was re-linked
+		return deleted;
+	}
+	
+	/* recalculate the heights & sizes from a node up to the root */
+	private void updatePathStatistics(BSTNode<T> node)
+	{
+		for (; node != null; node = node.getParent())
+		{
+			node.setHeight(heightOf(node));
+			node.setSize(sizeOf(node));
+		}
+	}
+	
+	/* after split or join: select the median by rank, leave the levels uncounted, and notify the listeners */
+	private void structureChanged()
+	{
+		int n = (root == null) ? 0 : root.getSize();
+		elementsSmallerThanMedian = (n == 0) ? 0 : (n - 1) / 2;
+		elementsLargerThanMedian = (n == 0) ? 0 : n - 1 - elementsSmallerThanMedian;
+		median = select(elementsSmallerThanMedian);
+		levelStatisticsValid = false;
+		modificationCount++;
+		for (TreeListener<T> listener : listeners)
+			listener.treeRebuilt();
+	}
+	
 	/*
 	 * Maintain median during insertion and deletion of elements,
 	 * by keeping track on how much elements or lager than current median,
@@ -544,7 +1179,207 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 	}
 		
 	/**
-	 * Get Maximum Height
+	 * Get the height of the tree in O(1), as maintained by insert & delete. 
+	 * @return height of the tree (zero for a single node or an empty tree).
+	 */
+	public int getHeight() {return (root == null) ? 0 : root.getHeight();}
+	
+	/** @return number of levels in the tree, in O(1) (except after split, join or a large delete, see getLevelWidth) */
+	public int getLevelCount() 
+	{
+		ensureLevelStatistics();
+		return levelCount;
+	}
+	
+	/**
+	 * Get the number of nodes in a level of the tree, in O(1).
+	 * Split & join don't count the levels, and neither does a delete which moves a large sub-tree up a level,
+	 * so the first query after them counts the levels once, in O(n).
+	 * @param level - the level (the root is in level 0).
+	 * @return number of nodes in the level, zero if the tree has no such level.
+	 */
+	public int getLevelWidth(int level) 
+	{
+		ensureLevelStatistics();
+		return (level < 0 || level >= levelCount) ? 0 : levelWidths[level];
+	}
+	
+	/**
+	 * Get the number of nodes in the widest level of the tree.
+	 * This takes O(1), except after the widest level got narrower, which takes one scan of the levels.
+	 * @return width of the widest level, zero for an empty tree.
+	 */
+	public int getWidth()
+	{
+		ensureLevelStatistics();
+		if (!maxWidthValid)
+		{
+			maxWidth = 0;
+			for (int level = 0; level < levelCount; level++)
+				maxWidth = Math.max(maxWidth, levelWidths[level]);
+			maxWidthValid = true;
+		}
+		return maxWidth;
+	}
+	
+	/**
+	 * Validate the maintained height, size & level statistics against a full scan of the tree.
+	 * @return true if the statistics match the tree.
+	 */
+	public boolean validateStatistics()
+	{
+		ensureLevelStatistics();
+		if (root == null)
+			return levelCount == 0;
+		if (getMaxHeight(root) != getHeight() || getMaxWidth(root) != getWidth() || levelCount != getHeight() + 1)
+			return false;
+		
+		// compare each level's width, and each node's height: 
+		ArrayList<BSTNode<T>> level = new ArrayList<BSTNode<T>>();
+		level.add(root);
+		for (int depth = 0; !level.isEmpty(); depth++)
+		{
+			if (levelWidths[depth] != level.size())
+				return false;
+			ArrayList<BSTNode<T>> nextLevel = new ArrayList<BSTNode<T>>();
+			for (BSTNode<T> node : level)
+			{
+				if (node.getHeight() != heightOf(node) || node.getSize() != sizeOf(node))
+					return false;
+				if (!node.isPointerWired(node.getLeft()))
+					nextLevel.add(node.getLeft());
+				if (!node.isPointerWired(node.getRight()))
+					nextLevel.add(node.getRight());
+			}
+			level = nextLevel;
+		}
+		return true;
+	}
+	
+	/* 
+	 * Calculate all the statistics from scratch (after the whole tree was replaced): 
+	 * levels top down, then heights bottom up. 
+	 */
+	private void recalculateStatistics()
+	{
+		Arrays.fill(levelWidths, 0);
+		levelCount = 0;
+		maxWidthValid = false;
+		levelStatisticsValid = true;
+		if (root == null)
+			return;
+		ArrayList<BSTNode<T>> nodes = new ArrayList<BSTNode<T>>(); // in BFS order
+		nodes.add(root);
+		for (int levelStart = 0, levelEnd = 1, depth = 0; levelStart < levelEnd; levelStart = levelEnd, levelEnd = nodes.size(), depth++)
+		{
+			addToLevel(depth, levelEnd - levelStart);
+			for (int i = levelStart; i < levelEnd; i++)
+			{
+				BSTNode<T> node = nodes.get(i);
+				if (!node.isPointerWired(node.getLeft()))
+					nodes.add(node.getLeft());
+				if (!node.isPointerWired(node.getRight()))
+					nodes.add(node.getRight());
+			}
+		}
+		for (int i = nodes.size() - 1; i >= 0; i--)
+		{
+			nodes.get(i).setHeight(heightOf(nodes.get(i)));
+			nodes.get(i).setSize(sizeOf(nodes.get(i)));
+		}
+	}
+	
+	/* count the levels again if split or join left them uncounted */
+	private void ensureLevelStatistics()
+	{
+		if (!levelStatisticsValid)
+			recalculateStatistics();
+	}
+	
+	/* level statistics maintenance: add (or remove, for a negative count) nodes in a level */
+	private void addToLevel(int level, int count)
+	{
+		if (!levelStatisticsValid)
+			return; // the levels will be counted from scratch when needed
+		if (level >= levelWidths.length)
+			levelWidths = Arrays.copyOf(levelWidths, Math.max(2 * levelWidths.length, level + 1));
+		if (count < 0 && levelWidths[level] == maxWidth)
+			maxWidthValid = false; // the widest level might get narrower
+		levelWidths[level] += count;
+		if (count > 0 && level >= levelCount)
+			levelCount = level + 1;
+		if (count > 0 && maxWidthValid && levelWidths[level] > maxWidth)
+			maxWidth = levelWidths[level];
+		while (levelCount > 0 && levelWidths[levelCount - 1] == 0)
+			levelCount--;
+	}
+	
+	/* 
+	 * level statistics maintenance: a sub-tree whose root was in the given depth moved one level up.
+	 * the sub-tree is scanned level by level in the tree's reused queue, so a delete allocates nothing,
+	 * unless it's too large to scan in a delete, and then the levels are left to be counted when needed. 
+	 */
+	private void shiftSubtreeUp(BSTNode<T> subtreeRoot, int depth)
+	{
+		if (!levelStatisticsValid)
+			return;
+		if (subtreeRoot.getSize() > MAX_SHIFTED_SUBTREE)
+		{
+			levelStatisticsValid = false;
+			return;
+		}
+		NodeQueue<T> queue = levelQueue();
+		queue.add(subtreeRoot);
+		for (; !queue.isEmpty(); depth++)
+		{
+			addToLevel(depth - 1, queue.size());
+			addToLevel(depth, -queue.size());
+			for (int levelWidth = queue.size(); levelWidth > 0; levelWidth--)
+			{
+				BSTNode<T> node = queue.remove();
+				if (!node.isPointerWired(node.getLeft()))
+					queue.add(node.getLeft());
+				if (!node.isPointerWired(node.getRight()))
+					queue.add(node.getRight());
+			}
+		}
+	}
+	
+	/* the queue reused by the level order scans, created on first use (it only grows) */
+	private NodeQueue<T> levelQueue()
+	{
+		if (levelQueue == null)
+			levelQueue = new NodeQueue<T>();
+		return levelQueue;
+	}
+	
+	/* utility method: the depth of a node (number of ancestors) */
+	private int depthOf(BSTNode<T> node)
+	{
+		int depth = 0;
+		for (BSTNode<T> ancestor = node.getParent(); ancestor != null; ancestor = ancestor.getParent())
+			depth++;
+		return depth;
+	}
+	
+	/* utility method: the size of a node's sub-tree from it's children's (maintained) sizes */
+	private int sizeOf(BSTNode<T> node)
+	{
+		int leftSize = node.isPointerWired(node.getLeft()) ? 0 : node.getLeft().getSize();
+		int rightSize = node.isPointerWired(node.getRight()) ? 0 : node.getRight().getSize();
+		return 1 + leftSize + rightSize;
+	}
+	
+	/* utility method: the height of a node from it's children's (maintained) heights */
+	private int heightOf(BSTNode<T> node)
+	{
+		int leftHeight = node.isPointerWired(node.getLeft()) ? -1 : node.getLeft().getHeight();
+		int rightHeight = node.isPointerWired(node.getRight()) ? -1 : node.getRight().getHeight();
+		return 1 + Math.max(leftHeight, rightHeight);
+	}
+	
+	/**
+	 * Get Maximum Height - full scan, for validation of getHeight only.
 	 * Utility method which recursively calculates max height of the sub-rooted tree.
 	 * @param node sub-tree to. For height of entire tree, pass the root node. 
 	 * @return max height of the sub-tree rooted in the node given in input.
@@ -579,10 +1414,10 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 	}
 	
 	/**
-	 * Get Maximum Height
-	 * Utility method which recursively calculates max height of the sub-rooted tree.
+	 * Get Maximum Width - full scan, for validation of getWidth only.
+	 * Utility method which calculates the number of nodes in the widest level of the tree, by BFS scan.
 	 * @param node sub-tree to. For height of entire tree, pass the root node. 
-	 * @return max height of the sub-tree rooted in the node given in input.
+	 * @return max width of the tree.
 	 */
 	public int getMaxWidth(BSTNode<T> node)
 	{
@@ -622,44 +1457,151 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 	@Override
 	public String toString()
 	{
-		if (root == null)
-			return "Tree is Empty";
-		
+		if (cachedDump != null && cachedDumpVersion == modificationCount && cachedDumpLevels == Integer.MAX_VALUE)
+			return cachedDump;
 		StringBuilder treeOutputBuffer = new StringBuilder();
-		String title = "\n============================\n";
-		treeOutputBuffer.append(title + "Tree state Printout with BFS" + title);
-		int currentlevel = -1;
-		BSTNode<T> currentNode;
-		BSTNode<T> sentinelNode = new BSTNode<T>(null);
-		Queue<BSTNode<T>> queue = new LinkedList<>();
+		try
+		{
+			printLevelOrder(treeOutputBuffer, Integer.MAX_VALUE);
+		}
+		catch (IOException ioException)
+		{// a StringBuilder never throws
+			throw new UncheckedIOException(ioException);
+		}
+		return treeOutputBuffer.toString();
+	}
+	
+	/**
+	 * Print the tree level by level (BFS), top to bottom and each level from left to right,
+	 * streaming the text to the output instead of building it in memory first.
+	 * Dumps of small trees are cached, stamped by the tree's modification count,
+	 * so a repeated dump of an unchanged tree is just copied to the output.
+	 * @param output - where to print the dump (e.g, a Writer, a PrintStream or a StringBuilder).
+	 * @param maxLevels - the number of levels to print, the deeper levels are only counted.
+	 * @throws IOException if the output failed.
+	 */
+	public void printLevelOrder(Appendable output, int maxLevels) throws IOException
+	{
+		if (maxLevels < 0)
+			throw new IllegalArgumentException("Invalid number of levels: " + maxLevels);
+		if (cachedDump != null && cachedDumpVersion == modificationCount && cachedDumpLevels == maxLevels)
+		{
+			output.append(cachedDump);
+			return;
+		}
+		if (size() > MAX_CACHED_DUMP_NODES)
+		{
+			writeLevelOrder(output, maxLevels);
+			return;
+		}
+		StringBuilder dump = new StringBuilder();
+		writeLevelOrder(dump, maxLevels);
+		cachedDump = dump.toString();
+		cachedDumpVersion = modificationCount;
+		cachedDumpLevels = maxLevels;
+		output.append(cachedDump);
+	}
+	
+	/* the level order scan itself, with a queue of the current & next levels (no sentinel nodes) */
+	private void writeLevelOrder(Appendable output, int maxLevels) throws IOException
+	{
+		if (root == null)
+		{
+			output.append("Tree is Empty");
+			return;
+		}
+		output.append(DUMP_TITLE).append("Tree state Printout with BFS").append(DUMP_TITLE);
+		NodeQueue<T> queue = levelQueue();
 		queue.add(root);
+		int level = 0;
 		
-		// scan each level in the tree top to bottom: 
-		while (!queue.isEmpty())
+		// scan each level in the tree top to bottom, the queue holds exactly the nodes of the current level: 
+		for (; !queue.isEmpty() && level < maxLevels; level++)
 		{
-			currentlevel++;
-			queue.add(sentinelNode); // sentinel to differ between the different levels 
-			currentNode = queue.remove();
-			treeOutputBuffer.append(String.format("Level [%d]:    ", currentlevel));
-			
-			// scan each node in current level, left to right: 
-			while (currentNode != sentinelNode)
+			output.append("Level [").append(Integer.toString(level)).append("]:    ");
+			for (int levelWidth = queue.size(); levelWidth > 0; levelWidth--)
 			{
-				// print current nodes details: 
-				treeOutputBuffer.append(currentNode.toString() + " ---> ");
+				BSTNode<T> node = queue.remove();
+				appendNode(output, node);
+				output.append(" ---> ");
 				
-				// if pointers are not threads, add children scan queue:
-				if (!currentNode.isPointerWired(currentNode.getLeft()))
-					queue.add(currentNode.getLeft());
-				if (!currentNode.isPointerWired(currentNode.getRight()))
-					queue.add(currentNode.getRight());
-				
-				// fetch next node: 
-				currentNode = queue.remove();
+				// if pointers are not threads, add children to the next level: 
+				if (!node.isPointerWired(node.getLeft()))
+					queue.add(node.getLeft());
+				if (!node.isPointerWired(node.getRight()))
+					queue.add(node.getRight());
 			}
-			treeOutputBuffer.append("\n");
+			output.append("\n");
+		}
+		if (!queue.isEmpty())
+			output.append("... ").append(Integer.toString(getHeight() + 1 - level)).append(" more levels\n");
+		queue.clear();
+	}
+	
+	/* append a node's contents, in the format of BSTNode.toString(), without formatting a string */
+	private static <T extends Comparable<T>> void appendNode(Appendable output, BSTNode<T> node) throws IOException
+	{
+		output.append("[Key:");
+		appendPadded(output, node.getData().toString());
+		output.append(" | p:");
+		appendPadded(output, (node.getParent() == null) ? "NIL" : node.getParent().getData().toString());
+		output.append(" | l:");
+		appendPadded(output, (node.getLeft() == null) ? "NIL" : node.getLeft().getData().toString());
+		output.append(" | r:");
+		appendPadded(output, (node.getRight() == null) ? "NIL" : node.getRight().getData().toString());
+		output.append(']');
+	}
+	
+	/* append a text right aligned to 3 characters, like "%3s" */
+	private static void appendPadded(Appendable output, String text) throws IOException
+	{
+		for (int i = text.length(); i < 3; i++)
+			output.append(' ');
+		output.append(text);
+	}
+	
+	/* a growable ring buffer of nodes, for level order scans */
+	private static class NodeQueue<T extends Comparable<T>>
+	{
+		private BSTNode<T>[] elements;
+		private int head, size;
+		
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		NodeQueue()
+		{
+			elements = new BSTNode[64];
+		}
+		
+		boolean isEmpty() {return size == 0;}
+		int size() {return size;}
+		
+		void add(BSTNode<T> node)
+		{
+			if (size == elements.length)
+			{// unroll the ring into a twice larger array:
+				BSTNode<T>[] larger = Arrays.copyOfRange(elements, head, head + 2 * elements.length);
+				System.arraycopy(elements, 0, larger, elements.length - head, head);
+				elements = larger;
+				head = 0;
+			}
+			elements[(head + size++) & (elements.length - 1)] = node;
+		}
+		
+		BSTNode<T> remove()
+		{
+			BSTNode<T> node = elements[head];
+			elements[head] = null;
+			head = (head + 1) & (elements.length - 1);
+			size--;
+			return node;
+		}
+		
+		void clear()
+		{
+			while (size > 0)
+				remove();
+			head = 0;
 		}
-		return treeOutputBuffer.toString();
 	}
 		
 	/**
@@ -692,6 +1634,153 @@ public class WiredBST<T extends Comparable<T>> implements BSTInterface<T>
 		return nodeList;
 	}
 	
+	/**
+	 * Build a balanced wired BST from elements which are already sorted, in one linear pass.
+	 * The nodes are linked as a balanced tree, then each missing child pointer is wired 
+	 * to it's neighbor in the sorted order, and the median is set directly by it's position.
+	 * @param sortedElements - distinct elements in ascending order.
+	 * @return a new balanced wired BST containing the elements.
+	 * @throws IllegalArgumentException if the elements are not strictly ascending.
+	 */
+	public static <T extends Comparable<T>> WiredBST<T> buildFromSorted(List<T> sortedElements)
+	{
+		int n = sortedElements.size();
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		BSTNode<T>[] nodes = new BSTNode[n];
+		for (int i = 0; i < n; i++)
+		{
+			nodes[i] = new BSTNode<T>(sortedElements.get(i));
+			if (i > 0 && nodes[i-1].getData().compareTo(nodes[i].getData()) >= 0)
+				throw new IllegalArgumentException(String.format("Elements are not sorted at <%s>", nodes[i].getData()));
+		}
+		return buildFromSortedNodes(nodes, (n - 1) / 2);
+	}
+	
+	/* 
+	 * Link nodes which are sorted by their keys into a balanced wired BST.
+	 * @param nodes - the nodes in in-order sequence.
+	 * @param medianPosition - index of the (lower) median node.
+	 */
+	private static <T extends Comparable<T>> WiredBST<T> buildFromSortedNodes(BSTNode<T>[] nodes, int medianPosition)
+	{
+		int n = nodes.length;
+		WiredBST<T> tree = new WiredBST<T>();
+		if (n == 0)
+			return tree;
+		
+		// link real children, middle element of each range is the root of the range: 
+		tree.setRoot(linkBalanced(nodes, 0, n - 1, null));
+		
+		// wire each missing child to it's in-order predecessor/successor:
+		for (int i = 0; i < n; i++)
+		{
+			if (nodes[i].getLeft() == null && i > 0)
+				nodes[i].setLeft(nodes[i-1]);
+			if (nodes[i].getRight() == null && i < n - 1)
+				nodes[i].setRight(nodes[i+1]);
+		}
+		
+		// set median & counters by position:
+		tree.median = nodes[medianPosition];
+		tree.elementsSmallerThanMedian = medianPosition;
+		tree.elementsLargerThanMedian = n - 1 - medianPosition;
+		return tree;
+	}
+	
+	/* utility method: link the nodes in range [low..high] as a balanced sub-tree, return it's root */
+	private static <T extends Comparable<T>> BSTNode<T> linkBalanced(BSTNode<T>[] nodes, int low, int high, BSTNode<T> parent)
+	{
+		if (low > high)
+			return null;
+		int middle = (low + high) >>> 1;
+		BSTNode<T> node = nodes[middle];
+		node.setParent(parent);
+		node.setLeft(linkBalanced(nodes, low, middle - 1, node));
+		node.setRight(linkBalanced(nodes, middle + 1, high, node));
+		return node;
+	}
+	
+	/**
+	 * Save a binary snapshot of the tree: the elements in in-order sequence, 
+	 * preceded by their count and the position of the median.
+	 * The whole snapshot is written through a single large buffer.
+	 * @param file - the snapshot file to write.
+	 * @param codec - converts each element to it's binary form.
+	 * @throws IOException if the file could not be written.
+	 */
+	public void saveSnapshot(File file, ElementCodec<T> codec) throws IOException
+	{
+		int size = size();
+		try (DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file), SNAPSHOT_BUFFER_SIZE)))
+		{
+			output.writeInt(SNAPSHOT_MAGIC);
+			output.writeInt(SNAPSHOT_VERSION);
+			output.writeInt(size);
+			output.writeInt(elementsSmallerThanMedian);
+			
+			// scan all nodes from minimum to maximum via the threads:
+			for (BSTNode<T> x = getMinimum(root); x != null; x = getSuccessor(x))
+				codec.write(output, x.getData());
+		}
+	}
+	
+	/**
+	 * Load a tree from a binary snapshot which was saved by saveSnapshot.
+	 * The tree is rebuilt balanced in one linear pass, without going through insert.
+	 * @param file - the snapshot file to read.
+	 * @param codec - converts each element from it's binary form.
+	 * @return the loaded tree.
+	 * @throws IOException if the file could not be read, or is not a valid snapshot.
+	 */
+	public static <T extends Comparable<T>> WiredBST<T> loadSnapshot(File file, ElementCodec<T> codec) throws IOException
+	{
+		try (DataInputStream input = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file), SNAPSHOT_BUFFER_SIZE)))
+		{
+			if (input.readInt() != SNAPSHOT_MAGIC)
+				throw new IOException("Not a tree snapshot: " + file.getName());
+			if (input.readInt() != SNAPSHOT_VERSION)
+				throw new IOException("Unsupported tree snapshot version: " + file.getName());
+			int size = input.readInt();
+			int medianPosition = input.readInt();
+			if (size < 0 || (size > 0 && medianPosition != (size - 1) / 2))
+				throw new IOException("Corrupted tree snapshot header: " + file.getName());
+			
+			// each element takes at least one byte, so a larger size could only come from a corrupted header:
+			if (size > file.length() - SNAPSHOT_HEADER_SIZE)
+				throw new IOException("Corrupted tree snapshot header, size exceeds the file: " + file.getName());
+			
+			// read the elements, which must be in ascending order:
+			@SuppressWarnings({"unchecked", "rawtypes"})
+			BSTNode<T>[] nodes = new BSTNode[size];
+			for (int i = 0; i < size; i++)
+			{
+				nodes[i] = new BSTNode<T>(codec.read(input));
+				if (i > 0 && nodes[i-1].getData().compareTo(nodes[i].getData()) >= 0)
+					throw new IOException("Corrupted tree snapshot, elements are out of order: " + file.getName());
+			}
+			return buildFromSortedNodes(nodes, Math.max(0, medianPosition));
+		}
+	}
+	
+	/**
+	 * Determine if a file is a tree snapshot, by it's header.
+	 * @param file - the file to check.
+	 * @return true if the file starts with the snapshot magic number.
+	 */
+	public static boolean isSnapshot(File file)
+	{
+		try (DataInputStream input = new DataInputStream(new FileInputStream(file)))
+		{
+			return input.readInt() == SNAPSHOT_MAGIC;
+		}
+		catch (IOException ioException)
+		{
+			return false;
+		}
+	}
+	
 	/**
 	 * Utility method for test purposes that convert wired BST to regular one. 
 	 * @return the root node of the standard binary search tree.  
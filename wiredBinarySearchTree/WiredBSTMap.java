@@ -0,0 +1,567 @@
+package wiredBinarySearchTree;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+
+import binaryTree.BSTNode;
+
+/**
+ * @author Chanan Welt
+ *
+ * WiredBSTMap - a NavigableMap backed by a wired BST, so it could replace a TreeMap (e.g, of students by id).
+ * The entries are kept in the tree ordered by the natural order of their keys (null keys are not allowed).
+ * Navigation uses the tree's single descent floor/ceiling/lower/higher, and iteration follows the threads,
+ * in both directions, without a stack and without copying.
+ * Sub-map, head-map, tail-map & descending views share the same tree, and are bounded by their keys only,
+ * so they reflect every change of the map; their size is counted by ranks in O(height), and they are cleared
+ * by a range deletion. Iterators are fail fast, by the tree's modification count.
+ * Like TreeMap, this class is not thread safe.
+ */
+public class WiredBSTMap<K extends Comparable<K>, V> extends AbstractMap<K, V> implements NavigableMap<K, V>
+{
+	/* an entry of the map, ordered in the tree by it's key */
+	static final class MapEntry<K extends Comparable<K>, V> implements Map.Entry<K, V>, Comparable<MapEntry<K, V>>
+	{
+		private final K key;
+		private V value;
+
+		MapEntry(K key, V value)
+		{
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public K getKey() {return key;}
+
+		@Override
+		public V getValue() {return value;}
+
+		@Override
+		public V setValue(V value)
+		{
+			V oldValue = this.value;
+			this.value = value;
+			return oldValue;
+		}
+
+		@Override
+		public int compareTo(MapEntry<K, V> other) {return key.compareTo(other.key);}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			if (!(other instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) other;
+			return key.equals(entry.getKey()) && Objects.equals(value, entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {return key.hashCode() ^ Objects.hashCode(value);}
+
+		@Override
+		public String toString() {return key + "=" + value;}
+	}
+
+	// Instance variables
+	private final WiredBST<MapEntry<K, V>> tree; // shared by the map & all of it's views
+	private final boolean fromStart, toEnd; // true if the view is not bounded from below / above
+	private final K low, high; // the bounds of a view, in the natural order
+	private final boolean lowInclusive, highInclusive;
+	private final boolean descending; // true if the view is in reverse order
+	private EntrySetView entrySet;
+	private WiredBSTSet<K> keySet;
+
+	/** Constructor 1 - an empty map */
+	public WiredBSTMap()
+	{
+		this(new WiredBST<MapEntry<K, V>>(), true, null, false, true, null, false, false);
+	}
+
+	/**
+	 * Constructor 2 - a map with the entries of the given map.
+	 * A sorted map in the natural order is linked into a balanced tree in linear time by the bulk build,
+	 * other maps are inserted one entry at a time.
+	 * @param map - the entries to copy.
+	 */
+	public WiredBSTMap(Map<? extends K, ? extends V> map)
+	{
+		this(buildTree(map), true, null, false, true, null, false, false);
+		if (tree.getRoot() == null)
+			putAll(map);
+	}
+
+	/* Constructor 3 - a view of a tree, bounded by the given keys (the bounds are validated by the callers) */
+	private WiredBSTMap(WiredBST<MapEntry<K, V>> tree, boolean fromStart, K low, boolean lowInclusive,
+			boolean toEnd, K high, boolean highInclusive, boolean descending)
+	{
+		if (!fromStart && !toEnd)
+		{
+			if (low.compareTo(high) > 0)
+				throw new IllegalArgumentException("fromKey > toKey");
+		}
+		else
+		{// type & null check of a single bound:
+			if (!fromStart)
+				low.compareTo(low);
+			if (!toEnd)
+				high.compareTo(high);
+		}
+		this.tree = tree;
+		this.fromStart = fromStart;
+		this.low = low;
+		this.lowInclusive = lowInclusive;
+		this.toEnd = toEnd;
+		this.high = high;
+		this.highInclusive = highInclusive;
+		this.descending = descending;
+	}
+
+	/* the bulk built tree of a sorted map in the natural order, or an empty tree for any other map */
+	private static <K extends Comparable<K>, V> WiredBST<MapEntry<K, V>> buildTree(Map<? extends K, ? extends V> map)
+	{
+		if (!(map instanceof SortedMap) || ((SortedMap<? extends K, ? extends V>) map).comparator() != null)
+			return new WiredBST<MapEntry<K, V>>();
+		List<MapEntry<K, V>> entries = new ArrayList<MapEntry<K, V>>(map.size());
+		for (Map.Entry<? extends K, ? extends V> entry : map.entrySet())
+			entries.add(new MapEntry<K, V>(Objects.requireNonNull(entry.getKey()), entry.getValue()));
+		return WiredBST.buildFromSorted(entries);
+	}
+
+	/*
+	 * Basic map operations
+	 */
+
+	@Override
+	public int size()
+	{
+		if (fromStart && toEnd)
+			return tree.size();
+		BSTNode<MapEntry<K, V>> lowest = absoluteLowest(), highest = absoluteHighest();
+		return (lowest == null) ? 0 : tree.rank(highest.getData()) - tree.rank(lowest.getData()) + 1;
+	}
+
+	@Override
+	public boolean isEmpty() {return absoluteLowest() == null;}
+
+	@Override
+	public boolean containsKey(Object key) {return getNode(key) != null;}
+
+	@Override
+	public V get(Object key)
+	{
+		BSTNode<MapEntry<K, V>> node = getNode(key);
+		return (node == null) ? null : node.getData().getValue();
+	}
+
+	@Override
+	public V put(K key, V value)
+	{
+		if (!inRange(key))
+			throw new IllegalArgumentException("key out of range");
+		BSTNode<MapEntry<K, V>> node = tree.search(tree.getRoot(), probe(key));
+		if (node != null)
+			return node.getData().setValue(value);
+		tree.insert(new MapEntry<K, V>(key, value));
+		return null;
+	}
+
+	@Override
+	public V remove(Object key)
+	{
+		BSTNode<MapEntry<K, V>> node = getNode(key);
+		if (node == null)
+			return null;
+		tree.delete(node);
+		return node.getData().getValue();
+	}
+
+	/** Remove all the entries of the map (or of the view's range) by a single range deletion */
+	@Override
+	public void clear()
+	{
+		BSTNode<MapEntry<K, V>> lowest = absoluteLowest();
+		if (lowest != null)
+			tree.deleteRange(lowest.getData(), absoluteHighest().getData());
+	}
+
+	/** @return null for the natural order of the keys, or the reverse order for a descending view */
+	@Override
+	public Comparator<? super K> comparator()
+	{
+		return descending ? Comparator.<K>reverseOrder() : null;
+	}
+
+	/*
+	 * Navigation (in the order of the view)
+	 */
+
+	@Override
+	public K firstKey() {return keyOrThrow(lowestNode());}
+
+	@Override
+	public K lastKey() {return keyOrThrow(highestNode());}
+
+	@Override
+	public Map.Entry<K, V> firstEntry() {return snapshot(lowestNode());}
+
+	@Override
+	public Map.Entry<K, V> lastEntry() {return snapshot(highestNode());}
+
+	@Override
+	public Map.Entry<K, V> pollFirstEntry() {return poll(lowestNode());}
+
+	@Override
+	public Map.Entry<K, V> pollLastEntry() {return poll(highestNode());}
+
+	@Override
+	public Map.Entry<K, V> lowerEntry(K key) {return snapshot(lowerNode(key));}
+
+	@Override
+	public K lowerKey(K key) {return keyOf(lowerNode(key));}
+
+	@Override
+	public Map.Entry<K, V> floorEntry(K key) {return snapshot(floorNode(key));}
+
+	@Override
+	public K floorKey(K key) {return keyOf(floorNode(key));}
+
+	@Override
+	public Map.Entry<K, V> ceilingEntry(K key) {return snapshot(ceilingNode(key));}
+
+	@Override
+	public K ceilingKey(K key) {return keyOf(ceilingNode(key));}
+
+	@Override
+	public Map.Entry<K, V> higherEntry(K key) {return snapshot(higherNode(key));}
+
+	@Override
+	public K higherKey(K key) {return keyOf(higherNode(key));}
+
+	/*
+	 * Views
+	 */
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet()
+	{
+		if (entrySet == null)
+			entrySet = new EntrySetView();
+		return entrySet;
+	}
+
+	@Override
+	public WiredBSTSet<K> keySet() {return navigableKeySet();}
+
+	@Override
+	public WiredBSTSet<K> navigableKeySet()
+	{
+		if (keySet == null)
+			keySet = new WiredBSTSet<K>(keyMap(), false);
+		return keySet;
+	}
+
+	@Override
+	public WiredBSTSet<K> descendingKeySet() {return descendingMap().navigableKeySet();}
+
+	@Override
+	public WiredBSTMap<K, V> descendingMap()
+	{
+		return new WiredBSTMap<K, V>(tree, fromStart, low, lowInclusive, toEnd, high, highInclusive, !descending);
+	}
+
+	@Override
+	public WiredBSTMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive)
+	{
+		checkInRange(fromKey, fromInclusive, "fromKey");
+		checkInRange(toKey, toInclusive, "toKey");
+		if (descending)
+			return new WiredBSTMap<K, V>(tree, false, toKey, toInclusive, false, fromKey, fromInclusive, true);
+		return new WiredBSTMap<K, V>(tree, false, fromKey, fromInclusive, false, toKey, toInclusive, false);
+	}
+
+	@Override
+	public WiredBSTMap<K, V> headMap(K toKey, boolean inclusive)
+	{
+		checkInRange(toKey, inclusive, "toKey");
+		if (descending)
+			return new WiredBSTMap<K, V>(tree, false, toKey, inclusive, toEnd, high, highInclusive, true);
+		return new WiredBSTMap<K, V>(tree, fromStart, low, lowInclusive, false, toKey, inclusive, false);
+	}
+
+	@Override
+	public WiredBSTMap<K, V> tailMap(K fromKey, boolean inclusive)
+	{
+		checkInRange(fromKey, inclusive, "fromKey");
+		if (descending)
+			return new WiredBSTMap<K, V>(tree, fromStart, low, lowInclusive, false, fromKey, inclusive, true);
+		return new WiredBSTMap<K, V>(tree, false, fromKey, inclusive, toEnd, high, highInclusive, false);
+	}
+
+	@Override
+	public SortedMap<K, V> subMap(K fromKey, K toKey) {return subMap(fromKey, true, toKey, false);}
+
+	@Override
+	public SortedMap<K, V> headMap(K toKey) {return headMap(toKey, false);}
+
+	@Override
+	public SortedMap<K, V> tailMap(K fromKey) {return tailMap(fromKey, true);}
+
+	/*
+	 * Package private access for the key set views
+	 */
+
+	/* iterator of the keys, in the order of the view */
+	Iterator<K> keyIterator()
+	{
+		return new ViewIterator<K>()
+		{
+			@Override
+			public K next() {return nextNode().getData().getKey();}
+		};
+	}
+
+	/* this map, typed as the map of a key set view (which never puts values into it) */
+	@SuppressWarnings("unchecked")
+	private WiredBSTMap<K, Object> keyMap() {return (WiredBSTMap<K, Object>) this;}
+
+	/*
+	 * Range checks, in the natural order
+	 */
+
+	/* is the key below the low bound of the view */
+	private boolean tooLow(K key)
+	{
+		if (fromStart)
+			return false;
+		int comparison = key.compareTo(low);
+		return comparison < 0 || (comparison == 0 && !lowInclusive);
+	}
+
+	/* is the key above the high bound of the view */
+	private boolean tooHigh(K key)
+	{
+		if (toEnd)
+			return false;
+		int comparison = key.compareTo(high);
+		return comparison > 0 || (comparison == 0 && !highInclusive);
+	}
+
+	private boolean inRange(K key) {return !tooLow(key) && !tooHigh(key);}
+
+	/* is a bound of a sub view inside this view (an exclusive bound may equal an exclusive bound of this view) */
+	private void checkInRange(K key, boolean inclusive, String name)
+	{
+		boolean inside = inclusive ? inRange(key)
+				: (fromStart || key.compareTo(low) >= 0) && (toEnd || key.compareTo(high) <= 0);
+		if (!inside)
+			throw new IllegalArgumentException(name + " out of range");
+	}
+
+	/*
+	 * Navigation by the tree, in the natural order, limited to the range of the view
+	 */
+
+	private BSTNode<MapEntry<K, V>> absoluteLowest()
+	{
+		BSTNode<MapEntry<K, V>> node = fromStart ? tree.getMinimum(tree.getRoot())
+				: lowInclusive ? tree.ceiling(probe(low)) : tree.higher(probe(low));
+		return (node == null || tooHigh(node.getData().getKey())) ? null : node;
+	}
+
+	private BSTNode<MapEntry<K, V>> absoluteHighest()
+	{
+		BSTNode<MapEntry<K, V>> node = toEnd ? tree.getMaximum(tree.getRoot())
+				: highInclusive ? tree.floor(probe(high)) : tree.lower(probe(high));
+		return (node == null || tooLow(node.getData().getKey())) ? null : node;
+	}
+
+	private BSTNode<MapEntry<K, V>> absoluteCeiling(K key)
+	{
+		if (tooLow(key))
+			return absoluteLowest();
+		BSTNode<MapEntry<K, V>> node = tree.ceiling(probe(key));
+		return (node == null || tooHigh(node.getData().getKey())) ? null : node;
+	}
+
+	private BSTNode<MapEntry<K, V>> absoluteHigher(K key)
+	{
+		if (tooLow(key))
+			return absoluteLowest();
+		BSTNode<MapEntry<K, V>> node = tree.higher(probe(key));
+		return (node == null || tooHigh(node.getData().getKey())) ? null : node;
+	}
+
+	private BSTNode<MapEntry<K, V>> absoluteFloor(K key)
+	{
+		if (tooHigh(key))
+			return absoluteHighest();
+		BSTNode<MapEntry<K, V>> node = tree.floor(probe(key));
+		return (node == null || tooLow(node.getData().getKey())) ? null : node;
+	}
+
+	private BSTNode<MapEntry<K, V>> absoluteLower(K key)
+	{
+		if (tooHigh(key))
+			return absoluteHighest();
+		BSTNode<MapEntry<K, V>> node = tree.lower(probe(key));
+		return (node == null || tooLow(node.getData().getKey())) ? null : node;
+	}
+
+	/*
+	 * Navigation in the order of the view
+	 */
+
+	private BSTNode<MapEntry<K, V>> lowestNode() {return descending ? absoluteHighest() : absoluteLowest();}
+	private BSTNode<MapEntry<K, V>> highestNode() {return descending ? absoluteLowest() : absoluteHighest();}
+	private BSTNode<MapEntry<K, V>> ceilingNode(K key) {return descending ? absoluteFloor(key) : absoluteCeiling(key);}
+	private BSTNode<MapEntry<K, V>> higherNode(K key) {return descending ? absoluteLower(key) : absoluteHigher(key);}
+	private BSTNode<MapEntry<K, V>> floorNode(K key) {return descending ? absoluteCeiling(key) : absoluteFloor(key);}
+	private BSTNode<MapEntry<K, V>> lowerNode(K key) {return descending ? absoluteHigher(key) : absoluteLower(key);}
+
+	/* the next node in the order of the view, along the threads, or null at the end of the view */
+	private BSTNode<MapEntry<K, V>> nextNode(BSTNode<MapEntry<K, V>> node)
+	{
+		node = descending ? tree.getPredecessor(node) : tree.getSuccessor(node);
+		return (node == null || !inRange(node.getData().getKey())) ? null : node;
+	}
+
+	/* the node of a key inside the view, or null */
+	private BSTNode<MapEntry<K, V>> getNode(Object key)
+	{
+		MapEntry<K, V> probe = probe(key);
+		return inRange(probe.getKey()) ? tree.search(tree.getRoot(), probe) : null;
+	}
+
+	/* an entry to search the tree by (a key which isn't comparable fails the cast, as in TreeMap) */
+	@SuppressWarnings("unchecked")
+	private static <K extends Comparable<K>, V> MapEntry<K, V> probe(Object key)
+	{
+		return new MapEntry<K, V>((K) Objects.requireNonNull(key), null);
+	}
+
+	/* delete a node & return a snapshot of it's entry (null for a null node) */
+	private Map.Entry<K, V> poll(BSTNode<MapEntry<K, V>> node)
+	{
+		if (node == null)
+			return null;
+		tree.delete(node);
+		return snapshot(node);
+	}
+
+	/* an immutable copy of the entry of a node, as returned by the navigation methods */
+	private static <K extends Comparable<K>, V> Map.Entry<K, V> snapshot(BSTNode<MapEntry<K, V>> node)
+	{
+		return (node == null) ? null : new AbstractMap.SimpleImmutableEntry<K, V>(node.getData());
+	}
+
+	private static <K extends Comparable<K>, V> K keyOf(BSTNode<MapEntry<K, V>> node)
+	{
+		return (node == null) ? null : node.getData().getKey();
+	}
+
+	private static <K extends Comparable<K>, V> K keyOrThrow(BSTNode<MapEntry<K, V>> node)
+	{
+		if (node == null)
+			throw new NoSuchElementException();
+		return node.getData().getKey();
+	}
+
+	/*
+	 * Iteration
+	 */
+
+	/* walks the view along the threads; remove() deletes the last node, which doesn't move any other node */
+	private abstract class ViewIterator<E> implements Iterator<E>
+	{
+		private BSTNode<MapEntry<K, V>> next = lowestNode(), lastReturned;
+		private int expectedModificationCount = tree.getModificationCount();
+
+		@Override
+		public boolean hasNext() {return next != null;}
+
+		BSTNode<MapEntry<K, V>> nextNode()
+		{
+			if (next == null)
+				throw new NoSuchElementException();
+			if (tree.getModificationCount() != expectedModificationCount)
+				throw new ConcurrentModificationException();
+			lastReturned = next;
+			next = WiredBSTMap.this.nextNode(next);
+			return lastReturned;
+		}
+
+		@Override
+		public void remove()
+		{
+			if (lastReturned == null)
+				throw new IllegalStateException();
+			if (tree.getModificationCount() != expectedModificationCount)
+				throw new ConcurrentModificationException();
+			tree.delete(lastReturned);
+			lastReturned = null;
+			expectedModificationCount = tree.getModificationCount();
+		}
+	}
+
+	/* the live entries of the view (setValue writes through to the map) */
+	private class EntrySetView extends AbstractSet<Map.Entry<K, V>>
+	{
+		@Override
+		public Iterator<Map.Entry<K, V>> iterator()
+		{
+			return new ViewIterator<Map.Entry<K, V>>()
+			{
+				@Override
+				public Map.Entry<K, V> next() {return nextNode().getData();}
+			};
+		}
+
+		@Override
+		public int size() {return WiredBSTMap.this.size();}
+
+		@Override
+		public boolean isEmpty() {return WiredBSTMap.this.isEmpty();}
+
+		@Override
+		public void clear() {WiredBSTMap.this.clear();}
+
+		@Override
+		public boolean contains(Object o)
+		{
+			return nodeOf(o) != null;
+		}
+
+		@Override
+		public boolean remove(Object o)
+		{
+			BSTNode<MapEntry<K, V>> node = nodeOf(o);
+			if (node == null)
+				return false;
+			tree.delete(node);
+			return true;
+		}
+
+		/* the node holding an equal entry (same key & value), or null */
+		private BSTNode<MapEntry<K, V>> nodeOf(Object o)
+		{
+			if (!(o instanceof Map.Entry))
+				return null;
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+			BSTNode<MapEntry<K, V>> node = getNode(entry.getKey());
+			return (node != null && Objects.equals(node.getData().getValue(), entry.getValue())) ? node : null;
+		}
+	}
+} // end of class
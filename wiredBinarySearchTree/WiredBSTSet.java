@@ -0,0 +1,148 @@
+package wiredBinarySearchTree;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.SortedSet;
+
+/**
+ * @author Chanan Welt
+ *
+ * WiredBSTSet - a NavigableSet backed by a wired BST, so it could replace a TreeSet.
+ * Like TreeSet over TreeMap, the set is a thin view over the keys of a WiredBSTMap,
+ * so it has the same thread following iterators, and the same sub-set & descending views which share the tree.
+ * The set is also the key set view of a WiredBSTMap, in which case elements could not be added through it.
+ */
+public class WiredBSTSet<E extends Comparable<E>> extends AbstractSet<E> implements NavigableSet<E>
+{
+	// Constants
+	private static final Object PRESENT = Boolean.TRUE; // the value of all the keys of the backing map
+
+	// Instance variables
+	private final WiredBSTMap<E, Object> map;
+	private final boolean addable; // false for the key set view of a map
+
+	/** Constructor 1 - an empty set */
+	public WiredBSTSet()
+	{
+		this(new WiredBSTMap<E, Object>(), true);
+	}
+
+	/**
+	 * Constructor 2 - a set with the given elements.
+	 * @param elements - the elements to add.
+	 */
+	public WiredBSTSet(Collection<? extends E> elements)
+	{
+		this();
+		addAll(elements);
+	}
+
+	/* Constructor 3 - the set of the keys of a map, or of a view of it */
+	WiredBSTSet(WiredBSTMap<E, Object> map, boolean addable)
+	{
+		this.map = map;
+		this.addable = addable;
+	}
+
+	@Override
+	public Iterator<E> iterator() {return map.keyIterator();}
+
+	@Override
+	public Iterator<E> descendingIterator() {return map.descendingMap().keyIterator();}
+
+	@Override
+	public int size() {return map.size();}
+
+	@Override
+	public boolean isEmpty() {return map.isEmpty();}
+
+	@Override
+	public boolean contains(Object o) {return map.containsKey(o);}
+
+	@Override
+	public boolean add(E e)
+	{
+		if (!addable)
+			throw new UnsupportedOperationException();
+		return map.put(e, PRESENT) == null;
+	}
+
+	@Override
+	public boolean remove(Object o)
+	{
+		// the values of a map's key set may be null, so the removal is detected by the size:
+		int oldSize = map.size();
+		map.remove(o);
+		return map.size() != oldSize;
+	}
+
+	@Override
+	public void clear() {map.clear();}
+
+	@Override
+	public Comparator<? super E> comparator() {return map.comparator();}
+
+	@Override
+	public E first() {return map.firstKey();}
+
+	@Override
+	public E last() {return map.lastKey();}
+
+	@Override
+	public E lower(E e) {return map.lowerKey(e);}
+
+	@Override
+	public E floor(E e) {return map.floorKey(e);}
+
+	@Override
+	public E ceiling(E e) {return map.ceilingKey(e);}
+
+	@Override
+	public E higher(E e) {return map.higherKey(e);}
+
+	@Override
+	public E pollFirst() {return keyOf(map.pollFirstEntry());}
+
+	@Override
+	public E pollLast() {return keyOf(map.pollLastEntry());}
+
+	@Override
+	public NavigableSet<E> descendingSet() {return new WiredBSTSet<E>(map.descendingMap(), addable);}
+
+	@Override
+	public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive)
+	{
+		return new WiredBSTSet<E>(map.subMap(fromElement, fromInclusive, toElement, toInclusive), addable);
+	}
+
+	@Override
+	public NavigableSet<E> headSet(E toElement, boolean inclusive)
+	{
+		return new WiredBSTSet<E>(map.headMap(toElement, inclusive), addable);
+	}
+
+	@Override
+	public NavigableSet<E> tailSet(E fromElement, boolean inclusive)
+	{
+		return new WiredBSTSet<E>(map.tailMap(fromElement, inclusive), addable);
+	}
+
+	@Override
+	public SortedSet<E> subSet(E fromElement, E toElement) {return subSet(fromElement, true, toElement, false);}
+
+	@Override
+	public SortedSet<E> headSet(E toElement) {return headSet(toElement, false);}
+
+	@Override
+	public SortedSet<E> tailSet(E fromElement) {return tailSet(fromElement, true);}
+
+	/* utility method: the key of a polled entry, or null */
+	private static <E> E keyOf(Map.Entry<E, ?> entry)
+	{
+		return (entry == null) ? null : entry.getKey();
+	}
+} // end of class